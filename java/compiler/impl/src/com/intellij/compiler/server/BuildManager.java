@@ -682,6 +682,9 @@ public class BuildManager implements ApplicationComponent{
     if (Registry.is("compiler.process.use.external.javac")) {
       cmdLine.addParameter("-D"+ GlobalOptions.USE_EXTERNAL_JAVAC_OPTION);
     }
+    if (Registry.is("compiler.process.reuse.javac.file.managers")) {
+      cmdLine.addParameter("-D"+ GlobalOptions.REUSE_JAVAC_FILE_MANAGERS_OPTION + "=true");
+    }
     final String host = NetUtils.getLocalHostString();
     cmdLine.addParameter("-D"+ GlobalOptions.HOSTNAME_OPTION + "=" + host);
 
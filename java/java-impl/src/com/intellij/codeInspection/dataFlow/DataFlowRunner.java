@@ -116,7 +116,7 @@ public class DataFlowRunner {
         return RunnerResult.TOO_COMPLEX;
       }
 
-      final ArrayList<DfaInstructionState> queue = new ArrayList<DfaInstructionState>();
+      final Queue<DfaInstructionState> queue = new ArrayDeque<DfaInstructionState>();
       for (final DfaMemoryState initialState : initialStates) {
         queue.add(new DfaInstructionState(myInstructions[0], initialState));
       }
@@ -133,7 +133,7 @@ public class DataFlowRunner {
         }
         ProgressManager.checkCanceled();
 
-        DfaInstructionState instructionState = queue.remove(0);
+        DfaInstructionState instructionState = queue.remove();
         if (LOG.isDebugEnabled()) {
           LOG.debug(instructionState.toString());
         }
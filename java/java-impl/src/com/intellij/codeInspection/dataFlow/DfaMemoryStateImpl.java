@@ -186,9 +186,24 @@ public class DfaMemoryStateImpl implements DfaMemoryState {
     return s1.compareTo(s2);
   }
 
+  /**
+   * Hashes only what {@link #equals(Object)} compares independently of the equivalence classes order,
+   * so that states can be compared by hash before the costly permutation-based comparison.
+   */
   public int hashCode() {
-    return 0;
-    //return myEqClasses.hashCode() + myStack.hashCode() + myVariableStates.hashCode();
+    int eqClassesHash = 0;
+    for (SortedIntSet aClass : myEqClasses) {
+      if (aClass != null) {
+        eqClassesHash += aClass.hashCode();
+      }
+    }
+    int result = myStateSize;
+    result = 31 * result + myDistinctClasses.size();
+    result = 31 * result + eqClassesHash;
+    result = 31 * result + myStack.hashCode();
+    result = 31 * result + myOffsetStack.hashCode();
+    result = 31 * result + myVariableStates.hashCode();
+    return 31 * result + (myHasDirtyFields ? 1 : 0);
   }
 
   private void appendClass(StringBuffer buf, int aClassIndex) {
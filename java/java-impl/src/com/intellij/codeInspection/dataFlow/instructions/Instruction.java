@@ -29,15 +29,18 @@ import com.intellij.codeInspection.dataFlow.DfaInstructionState;
 import com.intellij.codeInspection.dataFlow.DfaMemoryState;
 import com.intellij.codeInspection.dataFlow.InstructionVisitor;
 import com.intellij.openapi.progress.ProgressManager;
+import gnu.trove.TIntArrayList;
 
 import java.util.ArrayList;
 
 public abstract class Instruction {
   private int myIndex;
   private final ArrayList<DfaMemoryState> myProcessedStates;
+  private final TIntArrayList myProcessedStateHashes; // processed states are never modified, so their hashes are computed once
 
   protected Instruction() {
     myProcessedStates = new ArrayList<DfaMemoryState>();
+    myProcessedStateHashes = new TIntArrayList();
   }
 
   protected final DfaInstructionState[] nextInstruction(DataFlowRunner runner, DfaMemoryState stateBefore) {
@@ -47,9 +50,10 @@ public abstract class Instruction {
   public abstract DfaInstructionState[] accept(DataFlowRunner runner, DfaMemoryState stateBefore, InstructionVisitor visitor);
 
   public boolean isMemoryStateProcessed(DfaMemoryState dfaMemState) {
-    for (DfaMemoryState state : myProcessedStates) {
+    int hash = dfaMemState.hashCode();
+    for (int i = 0; i < myProcessedStates.size(); i++) {
       ProgressManager.checkCanceled();
-      if (dfaMemState.equals(state)) {
+      if (myProcessedStateHashes.get(i) == hash && dfaMemState.equals(myProcessedStates.get(i))) {
         return true;
       }
     }
@@ -60,6 +64,7 @@ public abstract class Instruction {
   public boolean setMemoryStateProcessed(DfaMemoryState dfaMemState) {
     if (myProcessedStates.size() > DataFlowRunner.MAX_STATES_PER_BRANCH) return false;
     myProcessedStates.add(dfaMemState);
+    myProcessedStateHashes.add(dfaMemState.hashCode());
     return true;
   }
 
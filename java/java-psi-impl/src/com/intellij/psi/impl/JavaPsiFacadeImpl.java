@@ -35,9 +35,12 @@ import com.intellij.psi.impl.source.tree.JavaElementType;
 import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.util.PsiModificationTracker;
 import com.intellij.util.ConcurrencyUtil;
+import com.intellij.util.ObjectUtils;
 import com.intellij.util.Processor;
 import com.intellij.util.SmartList;
 import com.intellij.util.containers.ConcurrentHashMap;
+import com.intellij.util.containers.ConcurrentSoftValueHashMap;
+import com.intellij.util.containers.ConcurrentWeakHashMap;
 import com.intellij.util.containers.ContainerUtil;
 import com.intellij.util.containers.HashMap;
 import com.intellij.util.messages.MessageBus;
@@ -45,6 +48,7 @@ import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author max
@@ -54,6 +58,17 @@ public class JavaPsiFacadeImpl extends JavaPsiFacadeEx {
   private final PsiNameHelper myNameHelper;
   private final PsiConstantEvaluationHelper myConstantEvaluationHelper;
   private final ConcurrentMap<String, PsiPackage> myPackageCache = new ConcurrentHashMap<String, PsiPackage>();
+  /**
+   * findClass results by scope and qualified name, {@link ObjectUtils#NULL} stands for a class not found.
+   * Cleared on every out-of-code-block modification, which includes roots changes and dumb mode switches.
+   * Scopes are held weakly since many of them are created per call and compare by identity, classes are held softly
+   * so that the cache never keeps PSI alive.
+   */
+  private final ConcurrentMap<GlobalSearchScope, ConcurrentMap<String, Object>> myClassCache =
+    new ConcurrentWeakHashMap<GlobalSearchScope, ConcurrentMap<String, Object>>();
+  private final AtomicLong myClassCacheHits = new AtomicLong();
+  private final AtomicLong myClassCacheMisses = new AtomicLong();
+  private final boolean myCacheClasses;
   private final Project myProject;
   private final JavaFileManager myFileManager;
 
@@ -69,9 +84,11 @@ public class JavaPsiFacadeImpl extends JavaPsiFacadeEx {
 
     final PsiModificationTracker modificationTracker = psiManager.getModificationTracker();
 
+    myCacheClasses = bus != null;
     if (bus != null) {
       bus.connect().subscribe(PsiModificationTracker.TOPIC, new PsiModificationTracker.Listener() {
         private long lastTimeSeen = -1L;
+        private long lastOutOfCodeBlockTimeSeen = -1L;
 
         @Override
         public void modificationCountChanged() {
@@ -80,6 +97,11 @@ public class JavaPsiFacadeImpl extends JavaPsiFacadeEx {
             lastTimeSeen = now;
             myPackageCache.clear();
           }
+          final long outOfCodeBlock = modificationTracker.getOutOfCodeBlockModificationCount();
+          if (lastOutOfCodeBlockTimeSeen != outOfCodeBlock) {
+            lastOutOfCodeBlockTimeSeen = outOfCodeBlock;
+            myClassCache.clear();
+          }
         }
       });
     }
@@ -108,6 +130,31 @@ public class JavaPsiFacadeImpl extends JavaPsiFacadeEx {
       return null;
     }
 
+    if (!myCacheClasses) {
+      return doFindClass(qualifiedName, scope);
+    }
+
+    ConcurrentMap<String, Object> scopeCache = myClassCache.get(scope);
+    if (scopeCache == null) {
+      scopeCache = ConcurrencyUtil.cacheOrGet(myClassCache, scope, new ConcurrentSoftValueHashMap<String, Object>());
+    }
+    Object cached = scopeCache.get(qualifiedName);
+    if (cached == ObjectUtils.NULL) {
+      myClassCacheHits.incrementAndGet();
+      return null;
+    }
+    if (cached != null && ((PsiClass)cached).isValid()) {
+      myClassCacheHits.incrementAndGet();
+      return (PsiClass)cached;
+    }
+
+    myClassCacheMisses.incrementAndGet();
+    PsiClass aClass = doFindClass(qualifiedName, scope);
+    scopeCache.put(qualifiedName, aClass == null ? ObjectUtils.NULL : aClass);
+    return aClass;
+  }
+
+  private PsiClass doFindClass(String qualifiedName, GlobalSearchScope scope) {
     for (PsiElementFinder finder : finders()) {
       PsiClass aClass = finder.findClass(qualifiedName, scope);
       if (aClass != null) return aClass;
@@ -116,6 +163,20 @@ public class JavaPsiFacadeImpl extends JavaPsiFacadeEx {
     return null;
   }
 
+  /**
+   * @return the number of {@link #findClass(String, GlobalSearchScope)} calls answered from the cache since the project opening
+   */
+  public long getClassCacheHits() {
+    return myClassCacheHits.get();
+  }
+
+  /**
+   * @return the number of {@link #findClass(String, GlobalSearchScope)} calls which asked element finders since the project opening
+   */
+  public long getClassCacheMisses() {
+    return myClassCacheMisses.get();
+  }
+
   @NotNull
   private List<PsiClass> findClassesInDumbMode(String qualifiedName, GlobalSearchScope scope) {
     final String packageName = StringUtil.getPackageName(qualifiedName);
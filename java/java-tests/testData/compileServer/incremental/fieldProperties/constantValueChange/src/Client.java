@@ -0,0 +1,5 @@
+class Client {
+  int bar(Server s) {
+    return s.foo() + Server.CONST;
+  }
+}
@@ -0,0 +1,7 @@
+class Server {
+  static final int CONST = 1;
+
+  int foo() {
+    return 1;
+  }
+}
@@ -0,0 +1,11 @@
+package p;
+
+public class C1 {
+    private int myField;
+
+    public void foo(int a, String s) {
+        a = a;
+        myField = 1;
+        s = s;
+    }
+}
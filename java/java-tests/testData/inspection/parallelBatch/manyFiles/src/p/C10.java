@@ -0,0 +1,11 @@
+package p;
+
+public class C10 {
+    private int myField;
+
+    public void foo(int a, String s) {
+        a = a;
+        myField = 10;
+        s = s;
+    }
+}
@@ -0,0 +1,11 @@
+package p;
+
+public class C7 {
+    private int myField;
+
+    public void foo(int a, String s) {
+        a = a;
+        myField = 7;
+        s = s;
+    }
+}
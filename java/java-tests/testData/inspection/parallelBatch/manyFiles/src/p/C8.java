@@ -0,0 +1,11 @@
+package p;
+
+public class C8 {
+    private int myField;
+
+    public void foo(int a, String s) {
+        a = a;
+        myField = 8;
+        s = s;
+    }
+}
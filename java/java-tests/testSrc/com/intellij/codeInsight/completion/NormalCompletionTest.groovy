@@ -29,6 +29,8 @@ import com.intellij.openapi.fileTypes.StdFileTypes
 import com.intellij.psi.codeStyle.CodeStyleSettingsManager
 import com.intellij.psi.codeStyle.CommonCodeStyleSettings
 import com.intellij.psi.*
+import com.intellij.testFramework.PlatformTestUtil
+import com.intellij.util.ThrowableRunnable
 
 public class NormalCompletionTest extends LightFixtureCompletionTestCase {
   @Override
@@ -1360,5 +1362,18 @@ public class ListUtils {
     assert myFixture.lookupElementStrings.containsAll(['foo', 'bar'])
   }
 
+  public void testTypingInHugeLookupPerformance() {
+    def fields = (0..<20000).collect { "int field$it;" }.join("\n")
+    PlatformTestUtil.startPerformanceTest("Typing in a lookup of 20000 items is slow", 3000, {
+      'ield1999'.each { type it }
+    } as ThrowableRunnable).setup({
+      LookupManager.getInstance(project).hideActiveLookup()
+      myFixture.configureByText "a.java", "class Foo {\n$fields\n void foo() { f<caret> }}"
+      complete()
+    } as ThrowableRunnable).cpuBound().assertTiming()
+    assert myFixture.lookupElementStrings[0] == 'field1999'
+    assert myFixture.lookupElementStrings.size() == 11
+  }
+
 
 }
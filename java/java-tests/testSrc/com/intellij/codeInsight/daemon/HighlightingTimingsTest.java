@@ -0,0 +1,50 @@
+/*
+ * Copyright 2000-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.codeInsight.daemon;
+
+import com.intellij.codeInsight.daemon.impl.HighlightingTimings;
+import com.intellij.codeInspection.LocalInspectionTool;
+import com.intellij.codeInspection.defUse.DefUseInspection;
+import com.intellij.codeInspection.ex.LocalInspectionToolWrapper;
+
+public class HighlightingTimingsTest extends LightDaemonAnalyzerTestCase {
+  private final DefUseInspection myInspection = new DefUseInspection();
+
+  @Override
+  protected LocalInspectionTool[] configureLocalInspectionTools() {
+    return new LocalInspectionTool[]{myInspection};
+  }
+
+  public void testInspectionTimeIsRecorded() throws Exception {
+    HighlightingTimings.getInstance().reset();
+    configureFromFileText("A.java", "class A { void foo() { int i = 0; i = 1; } }");
+    doHighlighting();
+
+    String name = new LocalInspectionToolWrapper(myInspection).getShortName();
+    HighlightingTimings.Timing recorded = null;
+    for (HighlightingTimings.Timing timing : HighlightingTimings.getInstance().getTimings()) {
+      if (timing.kind == HighlightingTimings.Kind.INSPECTION && timing.name.equals(name)) {
+        recorded = timing;
+      }
+    }
+    assertNotNull(HighlightingTimings.getInstance().getTimings().toString(), recorded);
+    assertTrue(recorded.count > 0);
+    assertTrue(recorded.wallNanos >= 0);
+
+    HighlightingTimings.getInstance().reset();
+    assertEmpty(HighlightingTimings.getInstance().getTimings());
+  }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2000-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.codeInspection;
+
+import com.intellij.JavaTestUtil;
+import com.intellij.codeInspection.sillyAssignment.SillyAssignmentInspection;
+import com.intellij.openapi.util.registry.Registry;
+import com.intellij.testFramework.InspectionTestCase;
+
+/**
+ * Both modes are checked against the same expected results, so files inspected in parallel must give exactly
+ * the problems found by the sequential run.
+ */
+public class ParallelBatchInspectionTest extends InspectionTestCase {
+  private static final String PARALLEL_KEY = "inspection.batch.parallel";
+
+  @Override
+  protected String getTestDataPath() {
+    return JavaTestUtil.getJavaTestDataPath() + "/inspection";
+  }
+
+  public void testSequential() throws Exception {
+    doTest(false);
+  }
+
+  public void testParallel() throws Exception {
+    doTest(true);
+  }
+
+  private void doTest(boolean parallel) throws Exception {
+    final boolean before = Registry.is(PARALLEL_KEY);
+    Registry.get(PARALLEL_KEY).setValue(parallel);
+    try {
+      doTest("parallelBatch/manyFiles", new SillyAssignmentInspection());
+    }
+    finally {
+      Registry.get(PARALLEL_KEY).setValue(before);
+    }
+  }
+}
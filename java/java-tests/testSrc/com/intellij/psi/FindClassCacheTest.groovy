@@ -0,0 +1,70 @@
+/*
+ * Copyright 2000-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.psi
+
+import com.intellij.openapi.application.ApplicationManager
+import com.intellij.psi.impl.JavaPsiFacadeImpl
+import com.intellij.psi.search.GlobalSearchScope
+import com.intellij.testFramework.PlatformTestUtil
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase
+import com.intellij.util.ThrowableRunnable
+
+class FindClassCacheTest extends LightCodeInsightFixtureTestCase {
+
+  public void "test missing class is cached until a class is added"() {
+    def facade = (JavaPsiFacadeImpl)JavaPsiFacade.getInstance(project)
+    def scope = GlobalSearchScope.allScope(project)
+    assert !facade.findClass('foo.Bar', scope)
+
+    def misses = facade.classCacheMisses
+    def hits = facade.classCacheHits
+    assert !facade.findClass('foo.Bar', scope)
+    assert facade.classCacheMisses == misses
+    assert facade.classCacheHits == hits + 1
+
+    def added = myFixture.addClass('package foo; public class Bar {}')
+    assert facade.findClass('foo.Bar', scope) == added
+  }
+
+  public void "test renamed class is not found by its old name"() {
+    def facade = JavaPsiFacade.getInstance(project)
+    def scope = GlobalSearchScope.allScope(project)
+    def added = myFixture.addClass('package foo; public class Bar {}')
+    assert facade.findClass('foo.Bar', scope) == added
+
+    ApplicationManager.application.runWriteAction { added.setName('Baz') }
+    assert !facade.findClass('foo.Bar', scope)
+    assert facade.findClass('foo.Baz', scope) == added
+  }
+
+  public void testRepeatedLookupsOfExistingAndMissingClassesPerformance() {
+    def facade = (JavaPsiFacadeImpl)JavaPsiFacade.getInstance(project)
+    def scope = GlobalSearchScope.allScope(project)
+    (0..<100).each { myFixture.addClass("package foo; public class Bar$it {}") }
+    def names = (0..<100).collect { "foo.Bar$it" } + (0..<100).collect { "foo.Missing$it" }
+
+    def hits = facade.classCacheHits
+    PlatformTestUtil.startPerformanceTest("Repeated findClass calls are slow", 2000, {
+      1000.times {
+        names.each { facade.findClass(it, scope) }
+      }
+    } as ThrowableRunnable).cpuBound().assertTiming()
+
+    assert facade.findClass('foo.Bar42', scope)
+    assert !facade.findClass('foo.Missing42', scope)
+    assert facade.classCacheHits - hits >= 1000 * names.size() - names.size()
+  }
+}
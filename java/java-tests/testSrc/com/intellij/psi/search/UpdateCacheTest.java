@@ -21,6 +21,8 @@ import com.intellij.ide.todo.TodoConfiguration;
 import com.intellij.lang.injection.InjectedLanguageManager;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.fileTypes.FileTypeManager;
+import com.intellij.openapi.fileTypes.StdFileTypes;
 import com.intellij.openapi.project.ProjectManager;
 import com.intellij.openapi.project.ex.ProjectManagerEx;
 import com.intellij.openapi.projectRoots.impl.ProjectRootUtil;
@@ -34,6 +36,7 @@ import com.intellij.psi.*;
 import com.intellij.psi.impl.JavaPsiFacadeImpl;
 import com.intellij.psi.impl.PsiManagerImpl;
 import com.intellij.psi.impl.cache.impl.id.IdIndex;
+import com.intellij.psi.impl.cache.impl.id.IdIndexEntry;
 import com.intellij.psi.impl.cache.impl.todo.TodoIndex;
 import com.intellij.psi.impl.cache.impl.todo.TodoIndexEntry;
 import com.intellij.psi.impl.source.tree.injected.InjectedLanguageManagerImpl;
@@ -47,7 +50,10 @@ import com.intellij.util.indexing.FileBasedIndex;
 import org.jetbrains.annotations.NonNls;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 @PlatformTestCase.WrapInCommand
 public class UpdateCacheTest extends PsiTestCase{
@@ -501,6 +507,37 @@ public class UpdateCacheTest extends PsiTestCase{
     checkTodos(new String[]{});
   }
 
+  public void testFileTypeAssociationInLibraryJar() throws Exception {
+    final File libDir = FileUtil.createTempDirectory("lib", null);
+    myFilesToDelete.add(libDir);
+    final ZipOutputStream jar = new ZipOutputStream(new FileOutputStream(new File(libDir, "lib.jar")));
+    try {
+      jar.putNextEntry(new ZipEntry("data.foo"));
+      jar.write("<root>uniqueJarWord</root>".getBytes());
+      jar.closeEntry();
+    }
+    finally {
+      jar.close();
+    }
+    PsiTestUtil.addLibrary(myModule, "lib", FileUtil.toSystemIndependentName(libDir.getPath()), "lib.jar");
+    assertEmpty(getFilesWithWord("uniqueJarWord"));
+
+    // the jar has been fully scanned now, a new association must make its entries indexable anyway
+    FileTypeManager.getInstance().associateExtension(StdFileTypes.XML, "foo");
+    try {
+      final Collection<VirtualFile> files = getFilesWithWord("uniqueJarWord");
+      assertEquals(1, files.size());
+      assertEquals("data.foo", files.iterator().next().getName());
+    }
+    finally {
+      FileTypeManager.getInstance().removeAssociatedExtension(StdFileTypes.XML, "foo");
+    }
+  }
+
+  private Collection<VirtualFile> getFilesWithWord(String word) {
+    return FileBasedIndex.getInstance().getContainingFiles(IdIndex.NAME, new IdIndexEntry(word, true), GlobalSearchScope.allScope(myProject));
+  }
+
   private void checkUsages(PsiElement element, @NonNls String[] expectedFiles){
     PsiReference[] refs = ReferencesSearch.search(element, GlobalSearchScope.projectScope(myProject), false).toArray(new PsiReference[0]);
 
@@ -11,4 +11,5 @@ public interface GlobalOptions {
   String PING_INTERVAL_MS_OPTION = "server.ping.interval";
   String GENERATE_CLASSPATH_INDEX_OPTION = "generate.classpath.index";
   String MAX_SIMULTANEOUS_BUILDS_OPTION = "max.simultaneous.builds";
+  String REUSE_JAVAC_FILE_MANAGERS_OPTION = "reuse.javac.file.managers";
 }
@@ -170,8 +170,8 @@ final class BuildSession implements Runnable, CanceledStatus {
     ProjectTimestamps projectTimestamps = null;
     BuildDataManager dataManager = null;
     try {
-      projectTimestamps = new ProjectTimestamps(dataStorageRoot);
       dataManager = new BuildDataManager(dataStorageRoot, inMemoryMappingsDelta);
+      projectTimestamps = new ProjectTimestamps(dataStorageRoot, dataManager.getPathIdEnumerator());
       if (dataManager.versionDiffers()) {
         forceCleanCaches = true;
         msgHandler.processMessage(new CompilerMessage("build", BuildMessage.Kind.INFO, "Dependency data format has changed, project rebuild required"));
@@ -188,8 +188,8 @@ final class BuildSession implements Runnable, CanceledStatus {
       }
       forceCleanCaches = true;
       FileUtil.delete(dataStorageRoot);
-      projectTimestamps = new ProjectTimestamps(dataStorageRoot);
       dataManager = new BuildDataManager(dataStorageRoot, inMemoryMappingsDelta);
+      projectTimestamps = new ProjectTimestamps(dataStorageRoot, dataManager.getPathIdEnumerator());
       // second attempt succeded
       msgHandler.processMessage(new CompilerMessage("build", BuildMessage.Kind.INFO, "Project rebuild forced: " + e.getMessage()));
     }
@@ -159,7 +159,8 @@ public class IncArtifactBuilder extends ProjectLevelBuilder {
       });
       context.checkCanceled();
 
-      JarsBuilder builder = new JarsBuilder(changedJars, context, srcOutMapping, outSrcMapping, instructions);
+      JarsBuilder builder = new JarsBuilder(changedJars, context, srcOutMapping, outSrcMapping, instructions,
+                                            changedFiles.keySet());
       final boolean processed = builder.buildJars();
       if (!processed) {
         return;
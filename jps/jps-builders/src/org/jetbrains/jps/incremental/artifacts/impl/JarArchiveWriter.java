@@ -0,0 +1,372 @@
+/*
+ * Copyright 2000-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.jps.incremental.artifacts.impl;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.io.BufferExposingByteArrayOutputStream;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.util.ArrayUtil;
+import com.intellij.util.io.zip.DosTime;
+import com.intellij.util.io.zip.JBZipEntry;
+import com.intellij.util.io.zip.JBZipFile;
+import gnu.trove.THashSet;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jps.api.SharedThreadPool;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.jar.JarFile;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+
+/**
+ * Writes entries of an archive built by {@link JarsBuilder}. Entry data is compressed on pooled threads while the entries are
+ * appended to the archive in the order they were added.
+ * <p/>
+ * An existing archive may be updated incrementally: an entry whose source file hasn't changed since the previous build is kept
+ * as is (it isn't even read), only changed entries are appended and obsolete ones are dropped from the central directory.
+ * The update is performed on a copy of the archive which replaces the original one only when the writer is successfully
+ * {@link #close() closed}, so a failed or canceled build never leaves a half-updated archive behind.
+ */
+class JarArchiveWriter {
+  private static final Logger LOG = Logger.getInstance("#org.jetbrains.jps.incremental.artifacts.impl.JarArchiveWriter");
+  private static final int MAX_PENDING_ENTRIES = 2 * Runtime.getRuntime().availableProcessors();
+  private static final long MAX_PENDING_BYTES = 16 * 1024 * 1024;
+  private static final byte[] JAR_MAGIC_EXTRA = {(byte)0xFE, (byte)0xCA, 0, 0}; // the same marker as JarOutputStream writes
+  private static final long MAX_UNUSED_SPACE = 1024 * 1024;
+  private final JBZipFile myZipFile;
+  @Nullable private final File myUpdatedCopy;
+  @Nullable private final File myUpdatedArchive;
+  @Nullable private final Set<String> myChangedSources;
+  private final Set<String> myObsoleteEntries = new THashSet<String>();
+  private final LinkedList<FutureTask<CompressedEntry>> myPendingEntries = new LinkedList<FutureTask<CompressedEntry>>();
+  private final LinkedList<Long> myPendingSizes = new LinkedList<Long>();
+  private long myPendingBytes;
+
+  private JarArchiveWriter(JBZipFile zipFile, @Nullable File updatedCopy, @Nullable File updatedArchive,
+                           @Nullable Set<String> changedSources) {
+    myZipFile = zipFile;
+    myUpdatedCopy = updatedCopy;
+    myUpdatedArchive = updatedArchive;
+    myChangedSources = changedSources;
+    if (changedSources != null) {
+      for (JBZipEntry entry : zipFile.getEntries()) {
+        myObsoleteEntries.add(entry.getName());
+      }
+    }
+  }
+
+  /**
+   * Creates a writer for a new archive in an empty {@code jarFile}
+   */
+  public static JarArchiveWriter create(@NotNull File jarFile, @Nullable byte[] manifest) throws IOException {
+    FileUtil.createIfDoesntExist(jarFile);
+    final JarArchiveWriter writer = new JarArchiveWriter(new JBZipFile(jarFile), null, null, null);
+    if (manifest != null) {
+      writer.addEntry(JarFile.MANIFEST_NAME, manifest, System.currentTimeMillis());
+    }
+    return writer;
+  }
+
+  /**
+   * Opens existing archive for incremental update.
+   *
+   * @return {@code null} if the archive cannot be updated in place and should be rebuilt from scratch
+   */
+  @Nullable
+  public static JarArchiveWriter openForUpdate(@NotNull File jarFile, @Nullable byte[] manifest, @NotNull Set<String> changedSources) {
+    if (!jarFile.isFile()) {
+      return null;
+    }
+    File copy = null;
+    JBZipFile zipFile = null;
+    try {
+      zipFile = new JBZipFile(jarFile);
+      final boolean canBeUpdated = isManifestUpToDate(zipFile, manifest) && !hasTooMuchUnusedSpace(zipFile, jarFile.length());
+      zipFile.close();
+      zipFile = null;
+      if (!canBeUpdated) {
+        return null;
+      }
+
+      copy = FileUtil.createTempFile(jarFile.getParentFile(), jarFile.getName(), ".tmp", true, true);
+      FileUtil.copy(jarFile, copy);
+      zipFile = new JBZipFile(copy);
+      final JarArchiveWriter writer = new JarArchiveWriter(zipFile, copy, jarFile, changedSources);
+      writer.myObsoleteEntries.remove(JarFile.MANIFEST_NAME);
+      return writer;
+    }
+    catch (IOException e) {
+      LOG.info("Cannot update " + jarFile + " incrementally: " + e.getMessage());
+      if (zipFile != null) {
+        try {
+          zipFile.close();
+        }
+        catch (IOException ignored) {
+        }
+      }
+      if (copy != null) {
+        FileUtil.delete(copy);
+      }
+      return null;
+    }
+  }
+
+  /**
+   * The manifest must be the first entry of a jar, a changed manifest cannot be appended to the end of the existing archive
+   */
+  private static boolean isManifestUpToDate(JBZipFile zipFile, @Nullable byte[] manifest) throws IOException {
+    final JBZipEntry entry = zipFile.getEntry(JarFile.MANIFEST_NAME);
+    if (entry == null || manifest == null) {
+      return entry == null && manifest == null;
+    }
+    return Arrays.equals(entry.getData(), manifest);
+  }
+
+  /**
+   * Replaced entries leave their old data in the file, so the archive is rebuilt when garbage takes too much space
+   */
+  private static boolean hasTooMuchUnusedSpace(JBZipFile zipFile, long fileLength) {
+    long usedSpace = 0;
+    for (JBZipEntry entry : zipFile.getEntries()) {
+      usedSpace += entry.getCompressedSize();
+    }
+    return fileLength - usedSpace > Math.max(usedSpace, MAX_UNUSED_SPACE);
+  }
+
+  public void addDirectory(@NotNull String relativePath) throws IOException {
+    myObsoleteEntries.remove(relativePath);
+    if (myZipFile.getEntry(relativePath) != null) {
+      return;
+    }
+    // queued as well to keep the order of entries, the manifest must stay the first one
+    addEntry(relativePath, ArrayUtil.EMPTY_BYTE_ARRAY, -1);
+  }
+
+  /**
+   * @param sourcePath path of the source file which is tracked by the artifact builder or {@code null} if the file is produced
+   *                   during the build and therefore must be always written
+   */
+  public void addFile(@NotNull String relativePath, @NotNull final File file, @Nullable String sourcePath) throws IOException {
+    myObsoleteEntries.remove(relativePath);
+    final long timestamp = file.lastModified();
+    final JBZipEntry existing = myZipFile.getEntry(relativePath);
+    if (existing != null && isUnchanged(sourcePath, existing, timestamp) && existing.getSize() == file.length()) {
+      return;
+    }
+    addPendingEntry(relativePath, timestamp, file.length(), new Callable<byte[]>() {
+      @Override
+      public byte[] call() throws Exception {
+        return FileUtil.loadFileBytes(file);
+      }
+    });
+  }
+
+  /**
+   * @param sourcePath path of the archive the entry is extracted from
+   */
+  public void addEntry(@NotNull String relativePath, @NotNull InputStream content, long timestamp, @NotNull String sourcePath)
+    throws IOException {
+    myObsoleteEntries.remove(relativePath);
+    final JBZipEntry existing = myZipFile.getEntry(relativePath);
+    if (existing != null && isUnchanged(sourcePath, existing, timestamp)) {
+      return;
+    }
+    addEntry(relativePath, FileUtil.loadBytes(content), timestamp);
+  }
+
+  private void addEntry(String relativePath, final byte[] content, long timestamp) throws IOException {
+    addPendingEntry(relativePath, timestamp, content.length, new Callable<byte[]>() {
+      @Override
+      public byte[] call() throws Exception {
+        return content;
+      }
+    });
+  }
+
+  private boolean isUnchanged(@Nullable String sourcePath, JBZipEntry existing, long timestamp) {
+    return sourcePath != null && myChangedSources != null && !myChangedSources.contains(sourcePath)
+           && existing.getTime() == DosTime.dosToJavaTime(DosTime.javaToDosTime(timestamp));
+  }
+
+  /**
+   * Both the number of pending entries and the total size of their data are limited, so a few big files don't pile up in memory
+   * while waiting to be written
+   */
+  private void addPendingEntry(String relativePath, long timestamp, long size, Callable<byte[]> contentProvider) throws IOException {
+    while (!myPendingEntries.isEmpty() && myPendingBytes + size > MAX_PENDING_BYTES) {
+      writePendingEntry();
+    }
+    final FutureTask<CompressedEntry> task = new FutureTask<CompressedEntry>(new CompressingTask(relativePath, timestamp, contentProvider));
+    SharedThreadPool.INSTANCE.execute(task);
+    myPendingEntries.addLast(task);
+    myPendingSizes.addLast(size);
+    myPendingBytes += size;
+    if (myPendingEntries.size() > MAX_PENDING_ENTRIES) {
+      writePendingEntry();
+    }
+  }
+
+  private void writePendingEntry() throws IOException {
+    final CompressedEntry compressed;
+    try {
+      myPendingBytes -= myPendingSizes.removeFirst();
+      compressed = myPendingEntries.removeFirst().get();
+    }
+    catch (InterruptedException e) {
+      throw new IOException(e);
+    }
+    catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException)cause;
+      }
+      throw new IOException(cause);
+    }
+    final JBZipEntry entry = createEntry(compressed.myRelativePath);
+    entry.setMethod(compressed.myMethod);
+    entry.setTime(compressed.myTimestamp);
+    entry.setCompressedData(compressed.myContent, compressed.myLength, compressed.mySize, compressed.myCrc);
+  }
+
+  private JBZipEntry createEntry(String relativePath) {
+    final boolean first = myZipFile.getEntries().isEmpty();
+    final JBZipEntry entry = myZipFile.getOrCreateEntry(relativePath);
+    if (first) {
+      entry.setExtra(JAR_MAGIC_EXTRA);
+    }
+    return entry;
+  }
+
+  /**
+   * Writes the remaining entries and, if an existing archive is being updated, replaces it with the updated copy
+   */
+  public void close() throws IOException {
+    boolean written = false;
+    try {
+      while (!myPendingEntries.isEmpty()) {
+        writePendingEntry();
+      }
+      for (String name : myObsoleteEntries) {
+        final JBZipEntry entry = myZipFile.getEntry(name);
+        if (entry != null) {
+          entry.erase();
+        }
+      }
+      myZipFile.close();
+      written = true;
+    }
+    finally {
+      if (!written) {
+        abort();
+      }
+    }
+    if (myUpdatedCopy != null && myUpdatedArchive != null) {
+      FileUtil.rename(myUpdatedCopy, myUpdatedArchive);
+    }
+  }
+
+  /**
+   * Stops writing after a failure: pending entries are dropped and an archive which is being updated is left untouched
+   */
+  public void abort() {
+    for (FutureTask<CompressedEntry> task : myPendingEntries) {
+      task.cancel(false);
+    }
+    myPendingEntries.clear();
+    myPendingSizes.clear();
+    myPendingBytes = 0;
+    try {
+      myZipFile.close();
+    }
+    catch (IOException e) {
+      LOG.debug(e);
+    }
+    if (myUpdatedCopy != null) {
+      FileUtil.delete(myUpdatedCopy);
+    }
+  }
+
+  private static class CompressingTask implements Callable<CompressedEntry> {
+    private final String myRelativePath;
+    private final long myTimestamp;
+    private Callable<byte[]> myContentProvider;
+
+    private CompressingTask(String relativePath, long timestamp, Callable<byte[]> contentProvider) {
+      myRelativePath = relativePath;
+      myTimestamp = timestamp;
+      myContentProvider = contentProvider;
+    }
+
+    @Override
+    public CompressedEntry call() throws Exception {
+      final byte[] content = myContentProvider.call();
+      myContentProvider = null; // the task is kept until the entry is written, so don't retain the uncompressed data
+      final CRC32 crc = new CRC32();
+      crc.update(content);
+      if (content.length == 0) {
+        return new CompressedEntry(myRelativePath, myTimestamp, ZipEntry.STORED, content, 0, 0, crc.getValue());
+      }
+
+      final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+      try {
+        final BufferExposingByteArrayOutputStream output = new BufferExposingByteArrayOutputStream(content.length / 2 + 16);
+        final DeflaterOutputStream stream = new DeflaterOutputStream(output, deflater);
+        try {
+          stream.write(content);
+        }
+        finally {
+          stream.close();
+        }
+        return new CompressedEntry(myRelativePath, myTimestamp, ZipEntry.DEFLATED, output.getInternalBuffer(), output.size(),
+                                   content.length, crc.getValue());
+      }
+      finally {
+        deflater.end();
+      }
+    }
+  }
+
+  private static class CompressedEntry {
+    private final String myRelativePath;
+    private final long myTimestamp;
+    private final int myMethod;
+    private final byte[] myContent;
+    private final int myLength;
+    private final long mySize;
+    private final long myCrc;
+
+    private CompressedEntry(String relativePath, long timestamp, int method, byte[] content, int length, long size, long crc) {
+      myRelativePath = relativePath;
+      myTimestamp = timestamp;
+      myMethod = method;
+      myContent = content;
+      myLength = length;
+      mySize = size;
+      myCrc = crc;
+    }
+  }
+}
@@ -25,7 +25,6 @@ import com.intellij.util.ArrayUtil;
 import com.intellij.util.graph.CachingSemiGraph;
 import com.intellij.util.graph.DFSTBuilder;
 import com.intellij.util.graph.GraphGenerator;
-import com.intellij.util.io.ZipUtil;
 import gnu.trove.THashSet;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
@@ -45,10 +44,7 @@ import org.jetbrains.jps.incremental.messages.ProgressMessage;
 import java.io.*;
 import java.util.*;
 import java.util.jar.JarFile;
-import java.util.jar.JarOutputStream;
 import java.util.jar.Manifest;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 /**
  * @author nik
@@ -61,14 +57,21 @@ public class JarsBuilder {
   private final ArtifactSourceToOutputMapping mySrcOutMapping;
   private final ArtifactOutputToSourceMapping myOutSrcMapping;
   private final ArtifactInstructionsBuilder myInstructions;
+  private final Set<String> myChangedSourcePaths;
 
+  /**
+   * @param changedSourcePaths source files changed since the previous build; entries for other files are kept as is when an existing
+   *                           archive is updated in place
+   */
   public JarsBuilder(Set<JarInfo> jarsToBuild,
                      CompileContext context,
                      ArtifactSourceToOutputMapping srcOutMapping,
-                     ArtifactOutputToSourceMapping outSrcMapping, ArtifactInstructionsBuilder instructions) {
+                     ArtifactOutputToSourceMapping outSrcMapping, ArtifactInstructionsBuilder instructions,
+                     Set<String> changedSourcePaths) {
     mySrcOutMapping = srcOutMapping;
     myOutSrcMapping = outSrcMapping;
     myInstructions = instructions;
+    myChangedSourcePaths = changedSourcePaths;
     DependentJarsEvaluator evaluator = new DependentJarsEvaluator();
     for (JarInfo jarInfo : jarsToBuild) {
       evaluator.addJarWithDependencies(jarInfo);
@@ -146,14 +149,22 @@ public class JarsBuilder {
     }
 
     myContext.processMessage(new ProgressMessage("Building " + jar.getPresentableDestination() + "..."));
-    File jarFile = FileUtil.createTempFile("artifactCompiler", "tmp");
-    myBuiltJars.put(jar, jarFile);
-
-    FileUtil.createParentDirs(jarFile);
     final String targetJarPath = jar.getDestination().getOutputFilePath();
-    Manifest manifest = loadManifest(jar, targetJarPath);
-    final JarOutputStream jarOutputStream = createJarOutputStream(jarFile, manifest);
+    final byte[] manifest = getManifestBytes(loadManifest(jar, targetJarPath));
+
+    File jarFile = null;
+    JarArchiveWriter jarWriter = null;
+    if (jar.getDestination() instanceof ExplodedDestinationInfo) {
+      jarFile = new File(FileUtil.toSystemDependentName(targetJarPath));
+      jarWriter = JarArchiveWriter.openForUpdate(jarFile, manifest, myChangedSourcePaths);
+    }
+    if (jarWriter == null) {
+      jarFile = FileUtil.createTempFile("artifactCompiler", "tmp");
+      myBuiltJars.put(jar, jarFile);
+      jarWriter = JarArchiveWriter.create(jarFile, manifest);
+    }
 
+    boolean completed = false;
     try {
       final THashSet<String> writtenPaths = new THashSet<String>();
       if (manifest != null) {
@@ -168,7 +179,7 @@ public class JarsBuilder {
           LOG.assertTrue(rootIndex != -1, root + " not found in instructions");
           final ArtifactBuilderLogger logger = myContext.getLoggingManager().getArtifactBuilderLogger();
           if (root instanceof FileBasedArtifactSourceRoot) {
-            addFileToJar(jarOutputStream, jarFile, root.getRootFile(), root.getFilter(), relativePath, targetJarPath, writtenPaths,
+            addFileToJar(jarWriter, jarFile, root.getRootFile(), root.getFilter(), relativePath, targetJarPath, writtenPaths,
                          rootIndex);
           }
           else {
@@ -177,32 +188,38 @@ public class JarsBuilder {
             mySrcOutMapping.appendData(filePath, Collections.singletonList(targetJarPath));
             myOutSrcMapping.appendData(targetJarPath, Collections
               .singletonList(new ArtifactOutputToSourceMapping.SourcePathAndRootIndex(filePath, rootIndex)));
-            extractFileAndAddToJar(jarOutputStream, (JarBasedArtifactSourceRoot)root, relativePath, writtenPaths);
+            extractFileAndAddToJar(jarWriter, (JarBasedArtifactSourceRoot)root, relativePath, writtenPaths);
           }
         }
         else {
           JarInfo nestedJar = (JarInfo)pair.getSecond();
           File nestedJarFile = myBuiltJars.get(nestedJar);
           if (nestedJarFile != null) {
-            addFileToJar(jarOutputStream, jarFile, nestedJarFile, SourceFileFilter.ALL, relativePath, targetJarPath, writtenPaths, -1);
+            addFileToJar(jarWriter, jarFile, nestedJarFile, SourceFileFilter.ALL, relativePath, targetJarPath, writtenPaths, -1);
           }
           else {
             LOG.debug("nested jar file " + relativePath + " for " + jar.getPresentableDestination() + " not found");
           }
         }
       }
+      completed = true;
     }
     finally {
-      jarOutputStream.close();
+      if (!completed) {
+        jarWriter.abort();
+      }
     }
+    jarWriter.close();
   }
 
-  private static JarOutputStream createJarOutputStream(File jarFile, @Nullable Manifest manifest) throws IOException {
-    final BufferedOutputStream outputStream = new BufferedOutputStream(new FileOutputStream(jarFile));
-    if (manifest != null) {
-      return new JarOutputStream(outputStream, manifest);
+  @Nullable
+  private static byte[] getManifestBytes(@Nullable Manifest manifest) throws IOException {
+    if (manifest == null) {
+      return null;
     }
-    return new JarOutputStream(outputStream);
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    manifest.write(output);
+    return output.toByteArray();
   }
 
   @Nullable
@@ -262,42 +279,39 @@ public class JarsBuilder {
     }
   }
 
-  private static void extractFileAndAddToJar(final JarOutputStream jarOutputStream, final JarBasedArtifactSourceRoot root,
+  private static void extractFileAndAddToJar(final JarArchiveWriter jarWriter, final JarBasedArtifactSourceRoot root,
                                              final String relativeOutputPath, final Set<String> writtenPaths)
     throws IOException {
     final long timestamp = root.getRootFile().lastModified();
+    final String sourcePath = FileUtil.toSystemIndependentName(root.getRootFile().getAbsolutePath());
     root.processEntries(new JarBasedArtifactSourceRoot.EntryProcessor() {
       @Override
       public void process(@Nullable InputStream inputStream, @NotNull String relativePath) throws IOException {
-        String pathInJar = addParentDirectories(jarOutputStream, writtenPaths, PathUtil.appendToPath(relativeOutputPath, relativePath));
+        String pathInJar = addParentDirectories(jarWriter, writtenPaths, PathUtil.appendToPath(relativeOutputPath, relativePath));
 
         if (inputStream == null) {
-          addDirectoryEntry(jarOutputStream, pathInJar + "/", writtenPaths);
+          addDirectoryEntry(jarWriter, pathInJar + "/", writtenPaths);
         }
         else if (writtenPaths.add(pathInJar)) {
-          ZipEntry entry = new ZipEntry(pathInJar);
-          entry.setTime(timestamp);
-          jarOutputStream.putNextEntry(entry);
-          FileUtil.copy(inputStream, jarOutputStream);
-          jarOutputStream.closeEntry();
+          jarWriter.addEntry(pathInJar, inputStream, timestamp, sourcePath);
         }
       }
     });
 
   }
 
-  private void addFileToJar(final @NotNull JarOutputStream jarOutputStream, final @NotNull File jarFile, @NotNull File file,
+  private void addFileToJar(final @NotNull JarArchiveWriter jarWriter, final @NotNull File jarFile, @NotNull File file,
                             SourceFileFilter filter, @NotNull String relativePath, String targetJarPath,
                             final @NotNull Set<String> writtenPaths, final int rootIndex) throws IOException {
     if (!file.exists() || FileUtil.isAncestor(file, jarFile, false)) {
       return;
     }
 
-    relativePath = addParentDirectories(jarOutputStream, writtenPaths, relativePath);
-    addFileOrDirRecursively(jarOutputStream, file, filter, relativePath, targetJarPath, writtenPaths, rootIndex);
+    relativePath = addParentDirectories(jarWriter, writtenPaths, relativePath);
+    addFileOrDirRecursively(jarWriter, file, filter, relativePath, targetJarPath, writtenPaths, rootIndex);
   }
 
-  private void addFileOrDirRecursively(@NotNull ZipOutputStream jarOutputStream,
+  private void addFileOrDirRecursively(@NotNull JarArchiveWriter jarWriter,
                                        @NotNull File file,
                                        SourceFileFilter filter,
                                        @NotNull String relativePath,
@@ -310,19 +324,22 @@ public class JarsBuilder {
     if (file.isDirectory()) {
       final String directoryPath = relativePath.length() == 0 ? "" : relativePath + "/";
       if (!directoryPath.isEmpty()) {
-        addDirectoryEntry(jarOutputStream, directoryPath, writtenItemRelativePaths);
+        addDirectoryEntry(jarWriter, directoryPath, writtenItemRelativePaths);
       }
       final File[] children = file.listFiles();
       if (children != null) {
         for (File child : children) {
-          addFileOrDirRecursively(jarOutputStream, child, filter, directoryPath + child.getName(), targetJarPath, writtenItemRelativePaths,
+          addFileOrDirRecursively(jarWriter, child, filter, directoryPath + child.getName(), targetJarPath, writtenItemRelativePaths,
                                   rootIndex);
         }
       }
       return;
     }
 
-    final boolean added = ZipUtil.addFileToZip(jarOutputStream, file, relativePath, writtenItemRelativePaths, null);
+    final boolean added = writtenItemRelativePaths.add(relativePath);
+    if (added) {
+      jarWriter.addFile(relativePath, file, rootIndex != -1 ? filePath : null);
+    }
     if (rootIndex != -1) {
       myOutSrcMapping.appendData(targetJarPath, Collections.singletonList(new ArtifactOutputToSourceMapping.SourcePathAndRootIndex(filePath, rootIndex)));
       if (added) {
@@ -333,7 +350,7 @@ public class JarsBuilder {
   }
 
 
-  private static String addParentDirectories(JarOutputStream jarOutputStream, Set<String> writtenPaths, String relativePath) throws IOException {
+  private static String addParentDirectories(JarArchiveWriter jarWriter, Set<String> writtenPaths, String relativePath) throws IOException {
     while (StringUtil.startsWithChar(relativePath, '/')) {
       relativePath = relativePath.substring(1);
     }
@@ -341,22 +358,17 @@ public class JarsBuilder {
     while (i != -1) {
       String prefix = relativePath.substring(0, i+1);
       if (prefix.length() > 1) {
-        addDirectoryEntry(jarOutputStream, prefix, writtenPaths);
+        addDirectoryEntry(jarWriter, prefix, writtenPaths);
       }
       i = relativePath.indexOf('/', i + 1);
     }
     return relativePath;
   }
 
-  private static void addDirectoryEntry(final ZipOutputStream output, @NonNls final String relativePath, Set<String> writtenPaths) throws IOException {
+  private static void addDirectoryEntry(final JarArchiveWriter jarWriter, @NonNls final String relativePath, Set<String> writtenPaths) throws IOException {
     if (!writtenPaths.add(relativePath)) return;
 
-    ZipEntry e = new ZipEntry(relativePath);
-    e.setMethod(ZipEntry.STORED);
-    e.setSize(0);
-    e.setCrc(0);
-    output.putNextEntry(e);
-    output.closeEntry();
+    jarWriter.addDirectory(relativePath);
   }
 
   private class JarsGraph implements GraphGenerator.SemiGraph<JarInfo> {
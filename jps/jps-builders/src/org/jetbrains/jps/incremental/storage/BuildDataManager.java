@@ -18,16 +18,18 @@ import java.util.Map;
  *         Date: 10/7/11
  */
 public class BuildDataManager implements StorageOwner {
-  private static final int VERSION = 4;
+  private static final int VERSION = 6;
   private static final Logger LOG = Logger.getInstance("#org.jetbrains.jps.incremental.storage.BuildDataManager");
   private static final String SRC_TO_OUTPUTS_STORAGE = "src-out";
   private static final String SRC_TO_FORM_STORAGE = "src-form";
   private static final String MAPPINGS_STORAGE = "mappings";
+  private static final String PATH_IDS_STORAGE = "paths";
 
   private final Object mySourceToOutputLock = new Object();
   private final Map<String, SourceToOutputMapping> myProductionSourceToOutputs = new HashMap<String, SourceToOutputMapping>();
   private final Map<String, SourceToOutputMapping> myTestSourceToOutputs = new HashMap<String, SourceToOutputMapping>();
 
+  private final PathIdEnumerator myPathIds;
   private final SourceToFormMapping mySrcToFormMap;
   private final ArtifactsBuildData myArtifactsBuildData;
   private final Mappings myMappings;
@@ -36,6 +38,7 @@ public class BuildDataManager implements StorageOwner {
 
   public BuildDataManager(final File dataStorageRoot, final boolean useMemoryTempCaches) throws IOException {
     myDataStorageRoot = dataStorageRoot;
+    myPathIds = new PathIdEnumerator(new File(new File(dataStorageRoot, PATH_IDS_STORAGE), "data"));
     mySrcToFormMap = new SourceToFormMapping(new File(getSourceToFormsRoot(), "data"));
     myMappings = new Mappings(getMappingsRoot(), useMemoryTempCaches);
     myArtifactsBuildData = new ArtifactsBuildData(new File(dataStorageRoot, "artifacts"));
@@ -49,13 +52,20 @@ public class BuildDataManager implements StorageOwner {
     synchronized (mySourceToOutputLock) {
       mapping = storageMap.get(lowerCaseModuleName);
       if (mapping == null) {
-        mapping = new SourceToOutputMapping(new File(getSourceToOutputRoot(lowerCaseModuleName, testSources), "data"));
+        mapping = new SourceToOutputMapping(new File(getSourceToOutputRoot(lowerCaseModuleName, testSources), "data"), myPathIds);
         storageMap.put(lowerCaseModuleName, mapping);
       }
     }
     return mapping;
   }
 
+  /**
+   * @return path enumerator shared by all build storages of the project; it is closed together with this manager
+   */
+  public PathIdEnumerator getPathIdEnumerator() {
+    return myPathIds;
+  }
+
   public ArtifactsBuildData getArtifactsBuildData() {
     return myArtifactsBuildData;
   }
@@ -121,6 +131,7 @@ public class BuildDataManager implements StorageOwner {
         mappings.flush(memoryCachesOnly);
       }
     }
+    myPathIds.flush(memoryCachesOnly);
   }
 
   public void close() throws IOException {
@@ -138,19 +149,24 @@ public class BuildDataManager implements StorageOwner {
           closeStorage(mySrcToFormMap);
         }
         finally {
-          final Mappings mappings = myMappings;
-          if (mappings != null) {
-            try {
-              mappings.close();
-            }
-            catch (RuntimeException e) {
-              final Throwable cause = e.getCause();
-              if (cause instanceof IOException) {
-                throw ((IOException)cause);
+          try {
+            final Mappings mappings = myMappings;
+            if (mappings != null) {
+              try {
+                mappings.close();
+              }
+              catch (RuntimeException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                  throw ((IOException)cause);
+                }
+                throw e;
               }
-              throw e;
             }
           }
+          finally {
+            myPathIds.close();
+          }
         }
       }
     }
@@ -0,0 +1,67 @@
+package org.jetbrains.jps.incremental.storage;
+
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.util.io.PersistentStringEnumerator;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * Persistent mapping between file paths and int ids, shared by build storages so that they can use compact int keys and values
+ * instead of full path strings. Paths are stored in system-independent form; the mapping is append-only, so cleaning
+ * a storage that refers to it does not require cleaning the enumerator itself.
+ */
+public class PathIdEnumerator {
+  public static final int NULL_ID = 0;
+  private final PersistentStringEnumerator myEnumerator;
+
+  public PathIdEnumerator(File storePath) throws IOException {
+    FileUtil.createIfDoesntExist(storePath);
+    myEnumerator = new PersistentStringEnumerator(storePath, true);
+  }
+
+  public int toId(@NotNull File file) throws IOException {
+    return toId(file.getPath());
+  }
+
+  public int toId(@NotNull String path) throws IOException {
+    return myEnumerator.enumerate(FileUtil.toSystemIndependentName(path));
+  }
+
+  /**
+   * @return id of the path or {@link #NULL_ID} if the path has never been enumerated
+   */
+  public int tryToId(@NotNull File file) throws IOException {
+    return tryToId(file.getPath());
+  }
+
+  public int tryToId(@NotNull String path) throws IOException {
+    return myEnumerator.tryEnumerate(FileUtil.toSystemIndependentName(path));
+  }
+
+  @NotNull
+  public String toPath(int id) throws IOException {
+    return myEnumerator.valueOf(id);
+  }
+
+  public int[] toIds(@NotNull Collection<String> paths) throws IOException {
+    final int[] ids = new int[paths.size()];
+    int i = 0;
+    for (String path : paths) {
+      ids[i++] = toId(path);
+    }
+    return ids;
+  }
+
+  public void flush(boolean memoryCachesOnly) {
+    if (!memoryCachesOnly && myEnumerator.isDirty()) {
+      myEnumerator.force();
+    }
+  }
+
+  public void close() throws IOException {
+    myEnumerator.close();
+  }
+}
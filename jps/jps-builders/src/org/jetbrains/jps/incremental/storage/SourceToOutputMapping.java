@@ -1,82 +1,121 @@
 package org.jetbrains.jps.incremental.storage;
 
-import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.util.io.DataExternalizer;
-import com.intellij.util.io.EnumeratorStringDescriptor;
-import com.intellij.util.io.IOUtil;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.EnumeratorIntegerDescriptor;
+import gnu.trove.TIntArrayList;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.*;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 /**
- *
+ * Source and output paths are stored as ids from the shared {@link PathIdEnumerator}: keys are ints and outputs are int arrays,
+ * so lookups never hash or compare full path strings.
  *
  * @author Eugene Zhuravlev
  *         Date: 10/7/11
  */
-public final class SourceToOutputMapping extends AbstractStateStorage<String, Collection<String>> {
+public final class SourceToOutputMapping implements StorageOwner {
+  private final PathIdEnumerator myPathIds;
+  private final AbstractStateStorage<Integer, int[]> myStorage;
 
-  public SourceToOutputMapping(File storePath) throws IOException {
-    super(storePath, new EnumeratorStringDescriptor(), new StringCollectionExternalizer());
+  public SourceToOutputMapping(File storePath, PathIdEnumerator pathIds) throws IOException {
+    myPathIds = pathIds;
+    myStorage = new AbstractStateStorage<Integer, int[]>(storePath, EnumeratorIntegerDescriptor.INSTANCE, new IntArrayExternalizer()) {};
   }
 
-  @Override
   public void update(@NotNull String srcPath, @NotNull Collection<String> outputs) throws IOException {
-    super.update(FileUtil.toSystemIndependentName(srcPath), normalizePaths(outputs));
+    myStorage.update(myPathIds.toId(srcPath), myPathIds.toIds(outputs));
   }
 
   public void update(@NotNull String srcPath, @NotNull String outputPath) throws IOException {
-    super.update(FileUtil.toSystemIndependentName(srcPath), Collections.singleton(FileUtil.toSystemIndependentName(outputPath)));
+    myStorage.update(myPathIds.toId(srcPath), new int[] {myPathIds.toId(outputPath)});
   }
 
   public void appendData(String srcPath, String outputPath) throws IOException {
-    super.appendData(FileUtil.toSystemIndependentName(srcPath), Collections.singleton(FileUtil.toSystemIndependentName(outputPath)));
+    myStorage.appendData(myPathIds.toId(srcPath), new int[] {myPathIds.toId(outputPath)});
   }
 
   public void appendData(String srcPath, Collection<String> data) throws IOException {
-    super.appendData(FileUtil.toSystemIndependentName(srcPath), normalizePaths(data));
+    myStorage.appendData(myPathIds.toId(srcPath), myPathIds.toIds(data));
   }
 
-  @Override
   public void remove(@NotNull String srcPath) throws IOException {
-    super.remove(FileUtil.toSystemIndependentName(srcPath));
+    final int id = myPathIds.tryToId(srcPath);
+    if (id != PathIdEnumerator.NULL_ID) {
+      myStorage.remove(id);
+    }
   }
 
   @Nullable
-  @Override
   public Collection<String> getState(@NotNull String srcPath) throws IOException {
-    return super.getState(FileUtil.toSystemIndependentName(srcPath));
+    final int id = myPathIds.tryToId(srcPath);
+    if (id == PathIdEnumerator.NULL_ID) {
+      return null;
+    }
+    final int[] outputs = myStorage.getState(id);
+    if (outputs == null) {
+      return null;
+    }
+    final List<String> result = new ArrayList<String>(outputs.length);
+    for (int output : outputs) {
+      result.add(myPathIds.toPath(output));
+    }
+    return result;
   }
 
-  protected static Collection<String> normalizePaths(Collection<String> outputs) {
-    Collection<String> normalized = new ArrayList<String>(outputs.size());
-    for (String out : outputs) {
-      normalized.add(FileUtil.toSystemIndependentName(out));
+  public Collection<String> getKeys() throws IOException {
+    final Collection<Integer> ids = myStorage.getKeys();
+    final List<String> result = new ArrayList<String>(ids.size());
+    for (Integer id : ids) {
+      result.add(myPathIds.toPath(id));
     }
-    return normalized;
+    return result;
+  }
+
+  public Iterator<String> getKeysIterator() throws IOException {
+    return getKeys().iterator();
+  }
+
+  @Override
+  public void flush(boolean memoryCachesOnly) {
+    myStorage.flush(memoryCachesOnly);
+  }
+
+  @Override
+  public void clean() throws IOException {
+    myStorage.clean();
+  }
+
+  public boolean wipe() {
+    return myStorage.wipe();
+  }
+
+  @Override
+  public void close() throws IOException {
+    myStorage.close();
   }
 
-  protected static class StringCollectionExternalizer implements DataExternalizer<Collection<String>> {
+  private static class IntArrayExternalizer implements DataExternalizer<int[]> {
 
-    public void save(DataOutput out, Collection<String> value) throws IOException {
-      for (String str : value) {
-        IOUtil.writeString(str, out);
+    public void save(DataOutput out, int[] value) throws IOException {
+      for (int id : value) {
+        DataInputOutputUtil.writeINT(out, id);
       }
     }
 
-    public Collection<String> read(DataInput in) throws IOException {
-      final List<String> result = new ArrayList<String>();
+    public int[] read(DataInput in) throws IOException {
+      final TIntArrayList result = new TIntArrayList();
       final DataInputStream stream = (DataInputStream)in;
       while (stream.available() > 0) {
-        final String str = IOUtil.readString(stream);
-        result.add(str);
+        result.add(DataInputOutputUtil.readINT(stream));
       }
-      return result;
+      return result.toNativeArray();
     }
   }
 }
@@ -1,8 +1,7 @@
 package org.jetbrains.jps.incremental.storage;
 
 import com.intellij.util.io.DataExternalizer;
-import com.intellij.util.io.IOUtil;
-import com.intellij.util.io.KeyDescriptor;
+import com.intellij.util.io.EnumeratorIntegerDescriptor;
 
 import java.io.DataInput;
 import java.io.DataOutput;
@@ -10,13 +9,18 @@ import java.io.File;
 import java.io.IOException;
 
 /**
+ * Keys are ids of file paths obtained from the shared {@link PathIdEnumerator}, so up-to-date checks
+ * hash and compare ints instead of full path strings.
+ *
  * @author Eugene Zhuravlev
  *         Date: 10/7/11
  */
-public class TimestampStorage extends AbstractStateStorage<File, TimestampValidityState> implements Timestamps {
+public class TimestampStorage extends AbstractStateStorage<Integer, TimestampValidityState> implements Timestamps {
+  private final PathIdEnumerator myPathIds;
 
-  public TimestampStorage(File storePath) throws IOException {
-    super(storePath, new FileKeyDescriptor(), new StateExternalizer());
+  public TimestampStorage(File storePath, PathIdEnumerator pathIds) throws IOException {
+    super(storePath, EnumeratorIntegerDescriptor.INSTANCE, new StateExternalizer());
+    myPathIds = pathIds;
   }
 
   @Override
@@ -31,7 +35,11 @@ public class TimestampStorage extends AbstractStateStorage<File, TimestampValidi
 
   @Override
   public long getStamp(File file) throws IOException {
-    final TimestampValidityState state = getState(file);
+    final int id = myPathIds.tryToId(file);
+    if (id == PathIdEnumerator.NULL_ID) {
+      return -1L;
+    }
+    final TimestampValidityState state = getState(id);
     return state != null? state.getTimestamp() : -1L;
   }
 
@@ -40,27 +48,14 @@ public class TimestampStorage extends AbstractStateStorage<File, TimestampValidi
     update(file, new TimestampValidityState(timestamp));
   }
 
-  public void removeStamp(File file) throws IOException {
-    remove(file);
+  public void update(File file, TimestampValidityState state) throws IOException {
+    update(myPathIds.toId(file), state);
   }
 
-  private static class FileKeyDescriptor implements KeyDescriptor<File> {
-    private final byte[] buffer = IOUtil.allocReadWriteUTFBuffer();
-
-    public void save(DataOutput out, File value) throws IOException {
-      IOUtil.writeUTFFast(buffer, out, value.getPath());
-    }
-
-    public File read(DataInput in) throws IOException {
-      return new File(IOUtil.readUTFFast(buffer, in));
-    }
-
-    public int getHashCode(File value) {
-      return value.hashCode();
-    }
-
-    public boolean isEqual(File val1, File val2) {
-      return val1.equals(val2);
+  public void removeStamp(File file) throws IOException {
+    final int id = myPathIds.tryToId(file);
+    if (id != PathIdEnumerator.NULL_ID) {
+      remove(id);
     }
   }
 
@@ -2,12 +2,16 @@ package org.jetbrains.jps.javac;
 
 import com.intellij.openapi.util.SystemInfo;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.jps.api.CanceledStatus;
+import org.jetbrains.jps.api.GlobalOptions;
 import org.jetbrains.jps.server.ClasspathBootstrap;
 
 import javax.tools.*;
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author Eugene Zhuravlev
@@ -21,6 +25,14 @@ public class JavacMain {
   private static final Set<String> FILTERED_SINGLE_OPTIONS = new HashSet<String>(Arrays.<String>asList(
     "-verbose", "-proc:only", "-implicit:class", "-implicit:none"
   ));
+  private static final int MAX_POOLED_FILE_MANAGERS = Runtime.getRuntime().availableProcessors();
+  /**
+   * Warm file managers: their opened classpath archives and zip indexes are kept between compilations, so consecutive
+   * small compilations do not reread jars. A manager is discarded when a jar it might have opened has been modified since.
+   */
+  private static final Queue<PooledFileManager> ourFileManagersPool = new ConcurrentLinkedQueue<PooledFileManager>();
+  private static final boolean CAN_POOL_OPTIMIZED_MANAGERS = canBeReused(ClasspathBootstrap.getOptimizedFileManagerClass());
+  private static final AtomicInteger ourReusedFileManagers = new AtomicInteger();
 
   public static boolean compile(Collection<String> options,
                                 final Collection<File> sources,
@@ -36,26 +48,24 @@ public class JavacMain {
     for (File outputDir : outputDirToRoots.keySet()) {
       outputDir.mkdirs();
     }
-    final JavacFileManager fileManager = new JavacFileManager(new ContextImpl(compiler, outConsumer, outputSink, canceledStatus));
+    final List<File> roots = new ArrayList<File>(classpath);
+    roots.addAll(platformClasspath);
+    final ContextImpl context = new ContextImpl(compiler, outConsumer, outputSink, canceledStatus, roots);
+    final JavacFileManager fileManager = new JavacFileManager(context);
 
     fileManager.handleOption("-bootclasspath", Collections.singleton("").iterator()); // this will clear cached stuff
     fileManager.handleOption("-extdirs", Collections.singleton("").iterator()); // this will clear cached stuff
 
     fileManager.setOutputDirectories(outputDirToRoots);
-    if (!classpath.isEmpty()) {
-      if (!fileManager.setLocation(StandardLocation.CLASS_PATH, classpath)) {
-        return false;
-      }
+    // null resets a location to its default, so that a reused manager does not keep paths of the previous compilation
+    if (!fileManager.setLocation(StandardLocation.CLASS_PATH, classpath.isEmpty()? null : classpath)) {
+      return false;
     }
-    if (!platformClasspath.isEmpty()) {
-      if (!fileManager.setLocation(StandardLocation.PLATFORM_CLASS_PATH, platformClasspath)) {
-        return false;
-      }
+    if (!fileManager.setLocation(StandardLocation.PLATFORM_CLASS_PATH, platformClasspath.isEmpty()? null : platformClasspath)) {
+      return false;
     }
-    if (!sourcePath.isEmpty()) {
-      if (!fileManager.setLocation(StandardLocation.SOURCE_PATH, sourcePath)) {
-        return false;
-      }
+    if (!fileManager.setLocation(StandardLocation.SOURCE_PATH, sourcePath.isEmpty()? null : sourcePath)) {
+      return false;
     }
 
     //noinspection IOResourceOpenedButNotSafelyClosed
@@ -83,11 +93,46 @@ public class JavacMain {
       outConsumer.report(new PlainMessageDiagnostic(Diagnostic.Kind.ERROR, e.getMessage()));
     }
     finally {
-      fileManager.close();
+      if (!context.releaseStandardFileManager()) {
+        fileManager.close();
+      }
     }
     return false;
   }
 
+  private static boolean isFileManagersReuseEnabled() {
+    return Boolean.parseBoolean(System.getProperty(GlobalOptions.REUSE_JAVAC_FILE_MANAGERS_OPTION));
+  }
+
+  /**
+   * @return the number of compilations which got a warm file manager from the pool
+   */
+  static int getReusedFileManagersCount() {
+    return ourReusedFileManagers.get();
+  }
+
+  /**
+   * The optimized manager is loaded from a prebuilt jar, which may predate the archive validation in setLocation()
+   * and the cache cleanup in flush(). Managers from such a jar would serve stale file states to the next compilation,
+   * so when the reuse is enabled the standard javac manager is used and pooled instead.
+   */
+  private static boolean canBeReused(@Nullable Class<?> managerClass) {
+    if (managerClass == null) {
+      return false;
+    }
+    try {
+      managerClass.getDeclaredMethod("setLocation", JavaFileManager.Location.class, Iterable.class);
+      managerClass.getDeclaredMethod("flush");
+      return true;
+    }
+    catch (NoSuchMethodException e) {
+      return false;
+    }
+    catch (SecurityException e) {
+      return false;
+    }
+  }
+
   private static boolean isAnnotationProcessingEnabled(final Collection<String> options) {
     for (String option : options) {
       if ("-proc:none".equals(option)) {
@@ -117,7 +162,8 @@ public class JavacMain {
   }
 
   private static class ContextImpl implements JavacFileManager.Context {
-    private final StandardJavaFileManager myStdManager;
+    private final PooledFileManager myManager;
+    private final boolean myReuseManager;
     private final DiagnosticOutputConsumer myOutConsumer;
     private final OutputFileConsumer myOutputFileSink;
     private final CanceledStatus myCanceledStatus;
@@ -125,15 +171,56 @@ public class JavacMain {
     public ContextImpl(@NotNull JavaCompiler compiler,
                        @NotNull DiagnosticOutputConsumer outConsumer,
                        @NotNull OutputFileConsumer sink,
-                       CanceledStatus canceledStatus) {
+                       CanceledStatus canceledStatus,
+                       @NotNull Collection<File> roots) {
       myOutConsumer = outConsumer;
       myOutputFileSink = sink;
       myCanceledStatus = canceledStatus;
-      StandardJavaFileManager stdManager = null;
+      myReuseManager = isFileManagersReuseEnabled();
+      PooledFileManager manager = myReuseManager ? pollUpToDateManager(roots) : null;
+      if (manager == null) {
+        final StandardJavaFileManager optimizedManager = !myReuseManager || CAN_POOL_OPTIMIZED_MANAGERS ? createOptimizedFileManager() : null;
+        if (optimizedManager != null) {
+          manager = new PooledFileManager(optimizedManager, null);
+        }
+        else {
+          final DiagnosticListenerSwitch listener = new DiagnosticListenerSwitch();
+          manager = new PooledFileManager(compiler.getStandardFileManager(listener, Locale.US, null), listener);
+        }
+      }
+      else {
+        ourReusedFileManagers.incrementAndGet();
+      }
+      if (manager.myListener != null) {
+        manager.myListener.myDelegate = outConsumer;
+      }
+      // stamps are taken before the compilation reads anything, so a jar modified during it invalidates the manager too
+      manager.rememberStamps(roots);
+      myManager = manager;
+    }
+
+    @Nullable
+    private static PooledFileManager pollUpToDateManager(Collection<File> roots) {
+      PooledFileManager manager;
+      while ((manager = ourFileManagersPool.poll()) != null) {
+        if (manager.isUpToDate(roots)) {
+          return manager;
+        }
+        try {
+          manager.myManager.close();
+        }
+        catch (Throwable ignored) {
+        }
+      }
+      return null;
+    }
+
+    @Nullable
+    private static StandardJavaFileManager createOptimizedFileManager() {
       final Class<StandardJavaFileManager> optimizedManagerClass = ClasspathBootstrap.getOptimizedFileManagerClass();
       if (optimizedManagerClass != null) {
         try {
-          stdManager = optimizedManagerClass.newInstance();
+          return optimizedManagerClass.newInstance();
         }
         catch (Throwable e) {
           if (SystemInfo.isWindows) {
@@ -141,12 +228,30 @@ public class JavacMain {
           }
         }
       }
-      if (stdManager != null) {
-        myStdManager = stdManager;
+      return null;
+    }
+
+    /**
+     * @return true if the standard manager has been returned to the pool and must not be closed
+     */
+    public boolean releaseStandardFileManager() {
+      if (!myReuseManager || ourFileManagersPool.size() >= MAX_POOLED_FILE_MANAGERS) {
+        return false;
       }
-      else {
-        myStdManager = compiler.getStandardFileManager(outConsumer, Locale.US, null);
+      if (myManager.myListener == null && !CAN_POOL_OPTIMIZED_MANAGERS) {
+        return false;
       }
+      try {
+        myManager.myManager.flush();
+      }
+      catch (Throwable e) {
+        return false;
+      }
+      if (myManager.myListener != null) {
+        myManager.myListener.myDelegate = null;
+      }
+      ourFileManagersPool.offer(myManager);
+      return true;
     }
 
     public boolean isCanceled() {
@@ -154,7 +259,7 @@ public class JavacMain {
     }
 
     public StandardJavaFileManager getStandardFileManager() {
-      return myStdManager;
+      return myManager.myManager;
     }
 
     public void reportMessage(final Diagnostic.Kind kind, String message) {
@@ -165,4 +270,54 @@ public class JavacMain {
       myOutputFileSink.save(cls);
     }
   }
+
+  private static class PooledFileManager {
+    private final StandardJavaFileManager myManager;
+    /**
+     * {@code null} for the optimized manager, which doesn't report diagnostics
+     */
+    @Nullable private final DiagnosticListenerSwitch myListener;
+    private final Map<File, Long> myJarStamps = new HashMap<File, Long>();
+
+    private PooledFileManager(StandardJavaFileManager manager, @Nullable DiagnosticListenerSwitch listener) {
+      myManager = manager;
+      myListener = listener;
+    }
+
+    /**
+     * Opened archives are cached by the manager, so it may be reused only if no jar it has seen before has been modified
+     */
+    public boolean isUpToDate(Collection<File> roots) {
+      for (File root : roots) {
+        final Long stamp = myJarStamps.get(root);
+        if (stamp != null && stamp.longValue() != root.lastModified()) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    public void rememberStamps(Collection<File> roots) {
+      for (File root : roots) {
+        if (root.isFile()) {
+          myJarStamps.put(root, root.lastModified());
+        }
+      }
+    }
+  }
+
+  /**
+   * The standard manager keeps the listener it was created with, so a pooled one reports to the current compilation
+   */
+  private static class DiagnosticListenerSwitch implements DiagnosticListener<JavaFileObject> {
+    private volatile DiagnosticListener<? super JavaFileObject> myDelegate;
+
+    @Override
+    public void report(Diagnostic<? extends JavaFileObject> diagnostic) {
+      final DiagnosticListener<? super JavaFileObject> delegate = myDelegate;
+      if (delegate != null) {
+        delegate.report(diagnostic);
+      }
+    }
+  }
 }
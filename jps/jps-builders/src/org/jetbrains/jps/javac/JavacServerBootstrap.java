@@ -10,6 +10,7 @@ import com.intellij.openapi.util.SystemInfo;
 import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.util.concurrency.Semaphore;
+import org.jetbrains.jps.api.GlobalOptions;
 import org.jetbrains.jps.server.ClasspathBootstrap;
 
 import java.io.File;
@@ -56,6 +57,11 @@ public class JavacServerBootstrap {
       appendParam(cmdLine, "-Duser.region=" + region);
     }
 
+    final String reuseFileManagers = System.getProperty(GlobalOptions.REUSE_JAVAC_FILE_MANAGERS_OPTION);
+    if (reuseFileManagers != null) {
+      appendParam(cmdLine, "-D" + GlobalOptions.REUSE_JAVAC_FILE_MANAGERS_OPTION + "=" + reuseFileManagers);
+    }
+
     for (String option : vmOptions) {
       appendParam(cmdLine, option);
     }
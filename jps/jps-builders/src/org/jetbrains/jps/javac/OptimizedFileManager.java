@@ -28,6 +28,7 @@ class OptimizedFileManager extends DefaultFileManager {
   private boolean myUseZipFileIndex;
   private final Map<File, Archive> myArchives;
   private final Map<File, Boolean> myIsFile = new ConcurrentHashMap<File, Boolean>();
+  private final Map<File, Long> myArchiveStamps = new ConcurrentHashMap<File, Long>();
   private final Map<InputFileObject, SoftReference<CharBuffer>> myContentCache = new HashMap<InputFileObject, SoftReference<CharBuffer>>();
 
   public OptimizedFileManager() throws Throwable {
@@ -58,6 +59,44 @@ class OptimizedFileManager extends DefaultFileManager {
     return getFileForInput(location, name);
   }
 
+  @Override
+  public void setLocation(Location location, Iterable<? extends File> path) throws IOException {
+    if (path != null) {
+      for (File root : path) {
+        dropArchiveIfModified(root);
+      }
+    }
+    super.setLocation(location, path);
+  }
+
+  /**
+   * Opened archives survive between compilations when the manager is reused, so an archive is reopened only if
+   * the jar has been modified since the location containing it was last set.
+   */
+  private void dropArchiveIfModified(File root) {
+    final long stamp = root.lastModified();
+    final Long previous = myArchiveStamps.put(root, stamp);
+    if (previous != null && previous.longValue() != stamp) {
+      myIsFile.remove(root);
+      final Archive archive = myArchives.remove(root);
+      if (archive != null) {
+        try {
+          archive.close();
+        }
+        catch (IOException ignored) {
+        }
+      }
+    }
+  }
+
+  @Override
+  public void flush() {
+    super.flush();
+    // sources and output directories may change before the next compilation; archive data is validated in setLocation()
+    myIsFile.clear();
+    myContentCache.clear();
+  }
+
   @Override
   public Iterable<? extends JavaFileObject> getJavaFileObjectsFromFiles(Iterable<? extends File> files) {
     java.util.List<InputFileObject> result;
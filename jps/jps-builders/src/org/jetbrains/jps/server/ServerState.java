@@ -141,8 +141,8 @@ class ServerState {
         BuildDataManager dataManager = null;
         final File dataStorageRoot = Utils.getDataStorageRoot(project);
         try {
-          timestamps = new ProjectTimestamps(dataStorageRoot);
           dataManager = new BuildDataManager(dataStorageRoot, myKeepTempCachesInMemory);
+          timestamps = new ProjectTimestamps(dataStorageRoot, dataManager.getPathIdEnumerator());
           if (dataManager.versionDiffers()) {
             forceCleanCaches = true;
             msgHandler.processMessage(new CompilerMessage("compile-server", BuildMessage.Kind.INFO, "Dependency data format has changed, project rebuild required"));
@@ -159,8 +159,8 @@ class ServerState {
           }
           forceCleanCaches = true;
           FileUtil.delete(dataStorageRoot);
-          timestamps = new ProjectTimestamps(dataStorageRoot);
           dataManager = new BuildDataManager(dataStorageRoot, myKeepTempCachesInMemory);
+          timestamps = new ProjectTimestamps(dataStorageRoot, dataManager.getPathIdEnumerator());
           // second attempt succeded
           msgHandler.processMessage(new CompilerMessage("compile-server", BuildMessage.Kind.INFO, "Project rebuild forced: " + e.getMessage()));
         }
@@ -32,6 +32,10 @@ public class FieldPropertyTest extends IncrementalTestCase {
     doTest();
   }
 
+  public void testConstantValueChange() throws Exception {
+    doTest();
+  }
+
   public void testDoubleConstantChange() throws Exception {
     doTest();
   }
@@ -203,9 +203,10 @@ public abstract class IncrementalTestCase extends TestCase {
 
     final File dataStorageRoot = Utils.getDataStorageRoot(project);
     final TestJavaBuilderLogger javaBuilderLogger = new TestJavaBuilderLogger(FileUtil.toSystemIndependentName(getWorkDir() + File.separator));
+    final BuildDataManager dataManager = new BuildDataManager(dataStorageRoot, true);
     final ProjectDescriptor projectDescriptor =
-      new ProjectDescriptor(project, new BuildFSState(true), new ProjectTimestamps(dataStorageRoot),
-                            new BuildDataManager(dataStorageRoot, true), new BuildLoggingManager(new ArtifactBuilderLoggerImpl(), javaBuilderLogger));
+      new ProjectDescriptor(project, new BuildFSState(true), new ProjectTimestamps(dataStorageRoot, dataManager.getPathIdEnumerator()),
+                            dataManager, new BuildLoggingManager(new ArtifactBuilderLoggerImpl(), javaBuilderLogger));
     try {
       new IncProjectBuilder(
         projectDescriptor, BuilderRegistry.getInstance(), projectDescriptor.timestamps.getStorage(), Collections.<String, String>emptyMap(), CanceledStatus.NULL,
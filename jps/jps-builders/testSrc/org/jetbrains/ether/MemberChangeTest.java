@@ -92,6 +92,10 @@ public class MemberChangeTest extends IncrementalTestCase {
     doTest();
   }
 
+  public void testChangeMethodBody() throws Exception {
+    doTest();
+  }
+
   public void testChangeStaticMethodSignature() throws Exception {
     doTest();
   }
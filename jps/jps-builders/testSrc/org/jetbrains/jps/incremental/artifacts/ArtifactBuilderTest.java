@@ -8,6 +8,7 @@ import org.jetbrains.jps.artifacts.Artifact;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
@@ -259,4 +260,33 @@ public class ArtifactBuilderTest extends ArtifactBuilderTestCase {
     }
   }
 
+  public void testJarMagicInFirstEntry() throws IOException {
+    final String file = createFile("src/A.txt", "a");
+    final Artifact a = addArtifact(archive("a.jar").dir("dir").fileCopy(file));
+    buildArtifacts(a);
+    JarFile jarFile = new JarFile(new File(FileUtil.toSystemDependentName(a.getOutputPath() + "/a.jar")));
+    try {
+      final Enumeration<JarEntry> entries = jarFile.entries();
+      assertTrue(entries.hasMoreElements());
+      assertTrue(Arrays.equals(new byte[]{(byte)0xFE, (byte)0xCA, 0, 0}, entries.nextElement().getExtra()));
+      assertTrue(entries.hasMoreElements());
+      assertNull(entries.nextElement().getExtra());
+    }
+    finally {
+      jarFile.close();
+    }
+  }
+
+  public void testEmptyArchive() throws IOException {
+    final Artifact a = addArtifact(archive("a.jar"));
+    buildArtifacts(a);
+    JarFile jarFile = new JarFile(new File(FileUtil.toSystemDependentName(a.getOutputPath() + "/a.jar")));
+    try {
+      assertFalse(jarFile.entries().hasMoreElements());
+    }
+    finally {
+      jarFile.close();
+    }
+  }
+
 }
@@ -15,9 +15,14 @@
  */
 package org.jetbrains.jps.incremental.artifacts;
 
+import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.util.PathUtil;
+import com.intellij.util.io.TestFileSystemBuilder;
 import org.jetbrains.jps.artifacts.Artifact;
 
+import java.io.File;
+import java.io.IOException;
+
 import static com.intellij.util.io.TestFileSystemItem.fs;
 import static org.jetbrains.jps.incremental.artifacts.LayoutElementTestUtil.archive;
 import static org.jetbrains.jps.incremental.artifacts.LayoutElementTestUtil.root;
@@ -85,6 +90,54 @@ public class IncrementalArtifactBuildingTest extends ArtifactBuilderTestCase {
     buildAllAndAssertUpToDate();
   }
 
+  public void testUpdateChangedFileInExistingArchive() {
+    String file1 = createFile("a.txt", "aaa");
+    String file2 = createFile("b.txt", "bbb");
+    String file3 = createFile("c.txt", "ccc");
+    final Artifact a = addArtifact(archive("a.jar").fileCopy(file1).fileCopy(file2).fileCopy(file3));
+    buildAll();
+    assertOutput(a, fs().archive("a.jar").file("a.txt", "aaa").file("b.txt", "bbb").file("c.txt", "ccc"));
+
+    change(file2, "xxx");
+    buildAll();
+    assertOutput(a, fs().archive("a.jar").file("a.txt", "aaa").file("b.txt", "xxx").file("c.txt", "ccc"));
+    buildAllAndAssertUpToDate();
+
+    change(file2, "yyy");
+    buildAll();
+    assertOutput(a, fs().archive("a.jar").file("a.txt", "aaa").file("b.txt", "yyy").file("c.txt", "ccc"));
+  }
+
+  public void testRemoveDeletedFileFromDirectoryInArchive() {
+    String file1 = createFile("dir/a.txt", "aaa");
+    createFile("dir/b.txt", "bbb");
+    final Artifact a = addArtifact("a", archive("a.jar").dirCopy(PathUtil.getParentPath(file1)));
+    buildAll();
+    assertOutput(a, fs().archive("a.jar").file("a.txt", "aaa").file("b.txt", "bbb"));
+
+    delete(file1);
+    buildAll();
+    assertOutput(a, fs().archive("a.jar").file("b.txt", "bbb"));
+    buildAllAndAssertUpToDate();
+  }
+
+  public void testExistingArchiveIsKeptIfBuildFails() throws IOException {
+    String file1 = createFile("a.txt", "aaa");
+    String file2 = createFile("b.txt", "bbb");
+    String libJar = createFile("lib/junit.jar");
+    FileUtil.copy(new File(getJUnitJarPath()), new File(FileUtil.toSystemDependentName(libJar)));
+    final Artifact a = addArtifact(archive("a.jar").fileCopy(file1).extractedDir(libJar, "/junit/textui/").fileCopy(file2));
+    buildAll();
+    final TestFileSystemBuilder expected = fs().archive("a.jar")
+      .file("a.txt", "aaa").file("ResultPrinter.class").file("TestRunner.class").file("b.txt", "bbb");
+    assertOutput(a, expected);
+
+    change(file1, "xxx");
+    change(libJar, "not a zip file");
+    buildAllAndAssertFailed();
+    assertOutput(a, expected);
+  }
+
   public void testOneFileInTwoArtifacts() {
     final String file = createFile("file.txt");
     final Artifact a1 = addArtifact("a1", root().dir("dir").fileCopy(file));
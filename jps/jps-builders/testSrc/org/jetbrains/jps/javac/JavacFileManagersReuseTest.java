@@ -0,0 +1,157 @@
+/*
+ * Copyright 2000-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.jps.javac;
+
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.intellij.testFramework.UsefulTestCase;
+import com.intellij.util.ThrowableRunnable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jps.api.CanceledStatus;
+import org.jetbrains.jps.api.GlobalOptions;
+
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.File;
+import java.util.*;
+
+/**
+ * Compiles the same small module many times in a row, which is what the compile server does on every make
+ * and what the pooled file managers are meant to speed up.
+ */
+public class JavacFileManagersReuseTest extends UsefulTestCase {
+  private static final int COMPILATIONS_COUNT = 50;
+  private File mySrcDir;
+  private File myOutputDir;
+  private String myReuseOptionBefore;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myReuseOptionBefore = System.getProperty(GlobalOptions.REUSE_JAVAC_FILE_MANAGERS_OPTION);
+    mySrcDir = FileUtil.createTempDirectory("javac-src", null);
+    myOutputDir = FileUtil.createTempDirectory("javac-out", null);
+    for (int i = 0; i < 20; i++) {
+      FileUtil.writeToFile(new File(mySrcDir, "p/A" + i + ".java"),
+                           "package p;\n" +
+                           "public class A" + i + " {\n" +
+                           "  @org.jetbrains.annotations.NotNull\n" +
+                           "  public String foo(java.util.List<String> list) { return list.toString(); }\n" +
+                           "}\n");
+    }
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    if (myReuseOptionBefore == null) {
+      System.clearProperty(GlobalOptions.REUSE_JAVAC_FILE_MANAGERS_OPTION);
+    }
+    else {
+      System.setProperty(GlobalOptions.REUSE_JAVAC_FILE_MANAGERS_OPTION, myReuseOptionBefore);
+    }
+    FileUtil.delete(mySrcDir);
+    FileUtil.delete(myOutputDir);
+    super.tearDown();
+  }
+
+  public void testRepeatedCompilationsPerformance() throws Exception {
+    System.setProperty(GlobalOptions.REUSE_JAVAC_FILE_MANAGERS_OPTION, "false");
+    final Map<String, byte[]> expected = new HashMap<String, byte[]>();
+    long start = System.currentTimeMillis();
+    for (int i = 0; i < COMPILATIONS_COUNT; i++) {
+      expected.clear();
+      compile(expected);
+    }
+    final long withoutReuse = System.currentTimeMillis() - start;
+    assertEquals(20, expected.size());
+
+    System.setProperty(GlobalOptions.REUSE_JAVAC_FILE_MANAGERS_OPTION, "true");
+    final int reusedBefore = JavacMain.getReusedFileManagersCount();
+    final Map<String, byte[]> actual = new HashMap<String, byte[]>();
+    start = System.currentTimeMillis();
+    for (int i = 0; i < COMPILATIONS_COUNT; i++) {
+      actual.clear();
+      compile(actual);
+    }
+    final long withReuse = System.currentTimeMillis() - start;
+    System.out.println(COMPILATIONS_COUNT + " compilations: " + withoutReuse + "ms with new file managers, " + withReuse + "ms with reused ones");
+
+    assertTrue(JavacMain.getReusedFileManagersCount() - reusedBefore >= COMPILATIONS_COUNT - 1);
+    assertSameElements(actual.keySet(), expected.keySet());
+    for (String path : expected.keySet()) {
+      assertTrue(path, Arrays.equals(expected.get(path), actual.get(path)));
+    }
+
+    PlatformTestUtil.startPerformanceTest(COMPILATIONS_COUNT + " compilations of 20 classes with reused file managers", 30000,
+                                          new ThrowableRunnable() {
+                                            @Override
+                                            public void run() throws Throwable {
+                                              for (int i = 0; i < COMPILATIONS_COUNT; i++) {
+                                                compile(new HashMap<String, byte[]>());
+                                              }
+                                            }
+                                          }).cpuBound().assertTiming();
+  }
+
+  private void compile(final Map<String, byte[]> outputs) {
+    final List<File> sources = new ArrayList<File>();
+    for (File file : new File(mySrcDir, "p").listFiles()) {
+      sources.add(file);
+    }
+    final List<File> classpath = Collections.singletonList(new File(PathManager.getJarPathForClass(NotNull.class)));
+    final Map<File, Set<File>> outputDirs = Collections.singletonMap(myOutputDir, Collections.singleton(mySrcDir));
+    final List<String> errors = new ArrayList<String>();
+    final boolean compiled = JavacMain.compile(Collections.<String>emptyList(), sources, classpath, Collections.<File>emptyList(),
+                                               Collections.singletonList(mySrcDir), outputDirs, new ErrorsCollector(errors),
+                                               new OutputFileConsumer() {
+                                                 @Override
+                                                 public void save(@NotNull OutputFileObject fileObject) {
+                                                   final OutputFileObject.Content content = fileObject.getContent();
+                                                   assertNotNull(content);
+                                                   final byte[] bytes = new byte[content.getLength()];
+                                                   System.arraycopy(content.getBuffer(), content.getOffset(), bytes, 0, bytes.length);
+                                                   synchronized (outputs) {
+                                                     outputs.put(fileObject.getRelativePath(), bytes);
+                                                   }
+                                                 }
+                                               }, CanceledStatus.NULL);
+    assertTrue(errors.toString(), compiled);
+  }
+
+  private static class ErrorsCollector implements DiagnosticOutputConsumer {
+    private final List<String> myErrors;
+
+    private ErrorsCollector(List<String> errors) {
+      myErrors = errors;
+    }
+
+    @Override
+    public void outputLineAvailable(String line) {
+    }
+
+    @Override
+    public void registerImports(String className, Collection<String> imports, Collection<String> staticImports) {
+    }
+
+    @Override
+    public void report(Diagnostic<? extends JavaFileObject> diagnostic) {
+      if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+        myErrors.add(diagnostic.getMessage(Locale.US));
+      }
+    }
+  }
+}
@@ -32,6 +32,8 @@ public class ClassRepr extends Proto {
   public final int outerClassName;
   public final boolean isLocal;
 
+  private final long surfaceHash;
+
   public abstract static class Diff extends Difference {
     public abstract Specifier<TypeRepr.AbstractType> interfaces();
 
@@ -170,7 +172,8 @@ public class ClassRepr extends Proto {
                    final Set<ElemType> targets,
                    final RetentionPolicy policy,
                    final int outerClassName,
-                   final boolean localClassFlag) {
+                   final boolean localClassFlag,
+                   final long surfaceHash) {
     super(a, sig, n);
     this.context = context;
     fileName = fn;
@@ -182,6 +185,7 @@ public class ClassRepr extends Proto {
     this.policy = policy;
     this.outerClassName = outerClassName;
     this.isLocal = localClassFlag;
+    this.surfaceHash = surfaceHash;
   }
 
   public ClassRepr(final DependencyContext context, final DataInput in) {
@@ -201,6 +205,7 @@ public class ClassRepr extends Proto {
 
       outerClassName = in.readInt();
       isLocal = in.readBoolean();
+      surfaceHash = in.readLong();
     }
     catch (IOException e) {
       throw new RuntimeException(e);
@@ -220,12 +225,20 @@ public class ClassRepr extends Proto {
       out.writeUTF(policy == null ? "" : policy.toString());
       out.writeInt(outerClassName);
       out.writeBoolean(isLocal);
+      out.writeLong(surfaceHash);
     }
     catch (IOException e) {
       throw new RuntimeException(e);
     }
   }
 
+  /**
+   * @return digest of the class file parts this representation is built from; equal digests mean equal representations
+   */
+  public long getSurfaceHash() {
+    return surfaceHash;
+  }
+
   public boolean isAnnotation() {
     return (access & Opcodes.ACC_ANNOTATION) > 0;
   }
@@ -1,12 +1,19 @@
 package org.jetbrains.ether.dependencyView;
 
 import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.util.io.BufferExposingByteArrayOutputStream;
 import gnu.trove.TIntHashSet;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.asm4.*;
 import org.jetbrains.asm4.signature.SignatureReader;
 import org.jetbrains.asm4.signature.SignatureVisitor;
 
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.lang.annotation.RetentionPolicy;
+import java.lang.reflect.Array;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 
 /**
@@ -19,9 +26,140 @@ import java.util.*;
 
 class ClassfileAnalyzer {
   private final DependencyContext context;
+  @Nullable private final UnchangedClassLookup unchangedClassLookup;
+
+  /**
+   * Provides stored representations of classes, so that a class whose surface hash hasn't changed reuses the stored
+   * representation instead of building and diffing a new one.
+   */
+  interface UnchangedClassLookup {
+    @Nullable
+    ClassRepr get(int className, long surfaceHash);
+  }
 
-  ClassfileAnalyzer(DependencyContext context) {
+  ClassfileAnalyzer(DependencyContext context, @Nullable UnchangedClassLookup unchangedClassLookup) {
     this.context = context;
+    this.unchangedClassLookup = unchangedClassLookup;
+  }
+
+  /**
+   * Accumulates the parts of a class file which {@link ClassRepr} is built from, i.e. everything but method bodies and
+   * annotations other than @Target and @Retention.
+   */
+  private static class SurfaceDigest {
+    private final BufferExposingByteArrayOutputStream buffer = new BufferExposingByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(buffer);
+
+    public void write(final int value) {
+      try {
+        out.writeInt(value);
+      }
+      catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+
+    public void write(@Nullable final String value) {
+      try {
+        if (value == null) {
+          out.writeInt(-1);
+        }
+        else {
+          out.writeInt(value.length());
+          out.writeChars(value);
+        }
+      }
+      catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+
+    public void write(@Nullable final String[] values) {
+      if (values == null) {
+        write(-1);
+      }
+      else {
+        write(values.length);
+        for (String value : values) {
+          write(value);
+        }
+      }
+    }
+
+    /**
+     * Arrays (e.g. primitive arrays passed as annotation default values) are written element by element,
+     * their toString() is an identity hash which would differ on every compilation.
+     */
+    public void writeValue(@Nullable final Object value) {
+      if (value == null) {
+        write((String)null);
+      }
+      else if (value.getClass().isArray()) {
+        write(value.getClass().getName());
+        final int length = Array.getLength(value);
+        write(length);
+        for (int i = 0; i < length; i++) {
+          writeValue(Array.get(value, i));
+        }
+      }
+      else {
+        write(value.getClass().getName());
+        write(value.toString());
+      }
+    }
+
+    public long getHash() {
+      final MessageDigest md5;
+      try {
+        md5 = MessageDigest.getInstance("MD5");
+      }
+      catch (NoSuchAlgorithmException e) {
+        throw new RuntimeException(e);
+      }
+      md5.update(buffer.getInternalBuffer(), 0, buffer.size());
+      final byte[] digest = md5.digest();
+
+      long hash = 0;
+      for (int i = 0; i < 8; i++) {
+        hash = (hash << 8) | (digest[i] & 0xFF);
+      }
+      return hash;
+    }
+  }
+
+  private static class FieldData {
+    private final int access;
+    private final String name;
+    private final String desc;
+    private final String signature;
+    private final Object value;
+
+    private FieldData(final int access, final String name, final String desc, final String signature, final Object value) {
+      this.access = access;
+      this.name = name;
+      this.desc = desc;
+      this.signature = signature;
+      this.value = value;
+    }
+  }
+
+  private static class MethodData {
+    private final int access;
+    private final String name;
+    private final String desc;
+    private final String signature;
+    private final String[] exceptions;
+    private final Object defaultValue;
+
+    private MethodData(final int access, final String name, final String desc, final String signature, final String[] exceptions,
+                       final Object defaultValue) {
+      this.access = access;
+      this.name = name;
+      this.desc = desc;
+      this.signature = signature;
+      this.exceptions = exceptions;
+      this.defaultValue = defaultValue;
+    }
   }
 
   private static class Holder<T> {
@@ -286,8 +424,9 @@ class ClassfileAnalyzer {
       localClassFlag.set(false);
     }
 
-    final Set<MethodRepr> methods = new HashSet<MethodRepr>();
-    final Set<FieldRepr> fields = new HashSet<FieldRepr>();
+    final List<MethodData> methods = new ArrayList<MethodData>();
+    final List<FieldData> fields = new ArrayList<FieldData>();
+    final SurfaceDigest surface = new SurfaceDigest();
     final List<String> nestedClasses = new ArrayList<String>();
     final UsageRepr.Cluster usages = new UsageRepr.Cluster();
     final Set<UsageRepr.Usage> annotationUsages = new HashSet<UsageRepr.Usage>();
@@ -306,10 +445,45 @@ class ClassfileAnalyzer {
       return (access & Opcodes.ACC_PRIVATE) == 0;
     }
 
+    private ClassRepr createRepr() {
+      final long surfaceHash = getSurfaceHash();
+
+      if (unchangedClassLookup != null) {
+        final ClassRepr unchanged = unchangedClassLookup.get(name, surfaceHash);
+
+        if (unchanged != null) {
+          return unchanged;
+        }
+      }
+
+      final Set<FieldRepr> fieldReprs = new HashSet<FieldRepr>();
+      for (FieldData f : fields) {
+        fieldReprs.add(new FieldRepr(context, f.access, context.get(f.name), context.get(f.desc), context.get(f.signature), f.value));
+      }
+
+      final Set<MethodRepr> methodReprs = new HashSet<MethodRepr>();
+      for (MethodData m : methods) {
+        methodReprs.add(new MethodRepr(context, m.access, context.get(m.name), context.get(m.signature), m.desc, m.exceptions, m.defaultValue));
+      }
+
+      return new ClassRepr(
+        context, access, fileName, name, context.get(signature), context.get(superClass), interfaces, nestedClasses, fieldReprs, methodReprs,
+        targets, policy, context.get(outerClassName.get()), localClassFlag.get(), surfaceHash);
+    }
+
+    private long getSurfaceHash() {
+      surface.write(fileName);
+      surface.write(outerClassName.get());
+      surface.write(localClassFlag.get() ? 1 : 0);
+      for (ElemType target : targets) {
+        surface.write(target.ordinal());
+      }
+      surface.write(policy == null ? -1 : policy.ordinal());
+      return surface.getHash();
+    }
+
     public Pair<ClassRepr, Pair<UsageRepr.Cluster, Set<UsageRepr.Usage>>> getResult() {
-      final ClassRepr repr =
-        takeIntoAccount ? new ClassRepr(
-          context, access, fileName, name, context.get(signature), context.get(superClass), interfaces, nestedClasses, fields, methods, targets, policy, context.get(outerClassName.get()), localClassFlag.get()) : null;
+      final ClassRepr repr = takeIntoAccount ? createRepr() : null;
 
       if (repr != null) {
         repr.updateClassUsages(context, usages);
@@ -332,6 +506,12 @@ class ClassfileAnalyzer {
 
       classNameHolder.set(n);
 
+      surface.write(a);
+      surface.write(n);
+      surface.write(sig);
+      surface.write(s);
+      surface.write(i);
+
       final int residence = context.get(classNameHolder.get());
 
       if (superClass != null) {
@@ -387,7 +567,13 @@ class ClassfileAnalyzer {
       processSignature(signature);
 
       if ((access & Opcodes.ACC_SYNTHETIC) == 0) {
-        fields.add(new FieldRepr(context, access, context.get(n), context.get(desc), context.get(signature), value));
+        fields.add(new FieldData(access, n, desc, signature, value));
+        surface.write('F');
+        surface.write(access);
+        surface.write(n);
+        surface.write(desc);
+        surface.write(signature);
+        surface.writeValue(value);
       }
 
       return new FieldVisitor(Opcodes.ASM4) {
@@ -408,7 +594,14 @@ class ClassfileAnalyzer {
         @Override
         public void visitEnd() {
           if ((access & Opcodes.ACC_SYNTHETIC) == 0 || (access & Opcodes.ACC_BRIDGE) > 0) {
-            methods.add(new MethodRepr(context, access, context.get(n), context.get(signature), desc, exceptions, defaultValue.get()));
+            methods.add(new MethodData(access, n, desc, signature, exceptions, defaultValue.get()));
+            surface.write('M');
+            surface.write(access);
+            surface.write(n);
+            surface.write(desc);
+            surface.write(signature);
+            surface.write(exceptions);
+            surface.writeValue(defaultValue.get());
           }
         }
 
@@ -63,6 +63,9 @@ public class Mappings {
   private final TIntHashSet myChangedClasses;
   private final TIntHashSet myChangedFiles;
   private final Set<ClassRepr> myDeletedClasses;
+  private final TIntHashSet myUnchangedClasses;
+  private final TIntHashSet myUnchangedClassesFiles;
+  @Nullable private final Mappings myBase;
   private final Object myLock;
   private final File myRootDir;
 
@@ -93,6 +96,9 @@ public class Mappings {
     myChangedClasses = new TIntHashSet(DEFAULT_SET_CAPACITY, DEFAULT_SET_LOAD_FACTOR);
     myChangedFiles = new TIntHashSet(DEFAULT_SET_CAPACITY, DEFAULT_SET_LOAD_FACTOR);
     myDeletedClasses = new HashSet<ClassRepr>(DEFAULT_SET_CAPACITY, DEFAULT_SET_LOAD_FACTOR);
+    myUnchangedClasses = new TIntHashSet(DEFAULT_SET_CAPACITY, DEFAULT_SET_LOAD_FACTOR);
+    myUnchangedClassesFiles = new TIntHashSet(DEFAULT_SET_CAPACITY, DEFAULT_SET_LOAD_FACTOR);
+    myBase = base;
     myDeltaIsTransient = base.myDeltaIsTransient;
     myRootDir = new File(FileUtil.toSystemIndependentName(base.myRootDir.getAbsolutePath()) + File.separatorChar + "myDelta");
     myContext = base.myContext;
@@ -110,6 +116,9 @@ public class Mappings {
     myChangedClasses = null;
     myChangedFiles = null;
     myDeletedClasses = null;
+    myUnchangedClasses = null;
+    myUnchangedClassesFiles = null;
+    myBase = null;
     myDeltaIsTransient = transientDelta;
     myRootDir = rootDir;
     createImplementation();
@@ -193,6 +202,47 @@ public class Mappings {
     return null;
   }
 
+  /**
+   * @return stored representation of the class if it was compiled from the same source file and its surface hash is the same
+   */
+  @Nullable
+  private ClassRepr getUnchangedRepr(final int className, final int sourceFileName, final long surfaceHash) {
+    if (myBase == null || myBase.myClassToSourceFile.get(className) != sourceFileName) {
+      return null;
+    }
+
+    final ClassRepr repr = myBase.getReprByName(className);
+
+    if (repr == null || repr.getSurfaceHash() != surfaceHash) {
+      return null;
+    }
+
+    myUnchangedClasses.add(className);
+    myUnchangedClassesFiles.add(sourceFileName);
+
+    return repr;
+  }
+
+  /**
+   * Classes with unchanged surface hash need not be compared with their previous versions
+   */
+  @Nullable
+  private Set<ClassRepr> withoutUnchangedClasses(@Nullable final Set<ClassRepr> classes) {
+    if (classes == null || myUnchangedClasses == null || myUnchangedClasses.isEmpty()) {
+      return classes;
+    }
+
+    final Set<ClassRepr> result = new HashSet<ClassRepr>(classes.size());
+
+    for (ClassRepr c : classes) {
+      if (!myUnchangedClasses.contains(c.name)) {
+        result.add(c);
+      }
+    }
+
+    return result;
+  }
+
   public void clean() throws IOException {
     if (myRootDir != null) {
       synchronized (myLock) {
@@ -1801,7 +1851,8 @@ public class Mappings {
           final int fileName = compiledFile.fileName;
           final Set<ClassRepr> classes = compiledFile.fileClasses;
           final Set<ClassRepr> pastClasses = (Set<ClassRepr>)mySourceFileToClasses.get(fileName);
-          final DiffState state = new DiffState(Difference.make(pastClasses, classes));
+          final DiffState state =
+            new DiffState(Difference.make(myDelta.withoutUnchangedClasses(pastClasses), myDelta.withoutUnchangedClasses(classes)));
 
           if (!processChangedClasses(state)) {
             return false;
@@ -1996,6 +2047,33 @@ public class Mappings {
             }
           });
 
+          delta.myUnchangedClassesFiles.forEach(new TIntProcedure() {
+            @Override
+            public boolean execute(int fileName) {
+              if (delta.getChangedFiles().contains(fileName)) {
+                return true;
+              }
+
+              // classes of the file are the same, but method bodies might have been changed
+              final Collection<UsageRepr.Cluster> clusters = delta.mySourceFileToUsages.get(fileName);
+              if (clusters != null) {
+                mySourceFileToUsages.replace(fileName, clusters);
+              }
+              else {
+                mySourceFileToUsages.remove(fileName);
+              }
+
+              final Collection<UsageRepr.Usage> usages = delta.mySourceFileToAnnotationUsages.get(fileName);
+              if (usages != null) {
+                mySourceFileToAnnotationUsages.replace(fileName, usages);
+              }
+              else {
+                mySourceFileToAnnotationUsages.remove(fileName);
+              }
+              return true;
+            }
+          });
+
           delta.getRemovedSuperClasses ().forEachEntry(new TIntObjectProcedure<TIntHashSet>() {
             @Override
             public boolean execute(final int a, final TIntHashSet b) {
@@ -2083,14 +2161,19 @@ public class Mappings {
       public void associate(final String classFileName, final String sourceFileName, final ClassReader cr) {
         synchronized (myLock) {
           final int classFileNameS = myContext.get(classFileName);
+          final int sourceFileNameS = myContext.get(sourceFileName);
+          final ClassfileAnalyzer.UnchangedClassLookup unchangedClassLookup = new ClassfileAnalyzer.UnchangedClassLookup() {
+            @Override
+            public ClassRepr get(final int className, final long surfaceHash) {
+              return getUnchangedRepr(className, sourceFileNameS, surfaceHash);
+            }
+          };
           final Pair<ClassRepr, Pair<UsageRepr.Cluster, Set<UsageRepr.Usage>>> result =
-            new ClassfileAnalyzer(myContext).analyze(classFileNameS, cr);
+            new ClassfileAnalyzer(myContext, unchangedClassLookup).analyze(classFileNameS, cr);
           final ClassRepr repr = result.first;
           final UsageRepr.Cluster localUsages = result.second.first;
           final Set<UsageRepr.Usage> localAnnotationUsages = result.second.second;
 
-          final int sourceFileNameS = myContext.get(sourceFileName);
-
           if (repr != null) {
             final int className = repr.name;
 
@@ -30,11 +30,12 @@ import com.intellij.util.ArrayUtil;
 import com.intellij.util.SmartList;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Collections;
 import java.util.List;
 
 public abstract class StubBase<T extends PsiElement> extends UserDataHolderBase implements StubElement<T> {
   private final StubElement myParent;
-  private final List<StubElement> myChildren = new SmartList<StubElement>();
+  private List<StubElement> myChildren; // null until the first child is added, most stubs are leaves
   private final IStubElementType myElementType;
   private volatile T myPsi;
   public int id;
@@ -43,10 +44,17 @@ public abstract class StubBase<T extends PsiElement> extends UserDataHolderBase
     myParent = parent;
     myElementType = elementType;
     if (parent != null) {
-      ((StubBase)parent).myChildren.add(this);
+      ((StubBase)parent).addChild(this);
     }
   }
 
+  private void addChild(StubElement child) {
+    if (myChildren == null) {
+      myChildren = new SmartList<StubElement>();
+    }
+    myChildren.add(child);
+  }
+
   @Override
   public StubElement getParentStub() {
     return myParent;
@@ -54,7 +62,8 @@ public abstract class StubBase<T extends PsiElement> extends UserDataHolderBase
 
   @Override
   public List<StubElement> getChildrenStubs() {
-    return myChildren;
+    final List<StubElement> children = myChildren;
+    return children == null ? Collections.<StubElement>emptyList() : children;
   }
 
   @Override
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2000-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.psi.tree;
+
+import com.intellij.lang.ASTNode;
+import com.intellij.lang.Language;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.TextRange;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Type of a composite element which isn't a chameleon but still can be reparsed apart from the rest of the file when a change
+ * lies within it. Unlike {@link IReparseableElementType} the new node is parsed eagerly: the implementation usually needs
+ * to look at the result to decide whether it's the same as the whole file reparse would produce.
+ */
+public interface IReparseableCompositeElementType {
+  /**
+   * @param node         the element being reparsed, still attached to the old tree
+   * @param newText      the new text of the element
+   * @param changedRange the changed part of <code>newText</code>
+   * @param fileLanguage the base language of the file
+   * @return the new element of this type built from <code>newText</code> using the char table of the file,
+   *         or null if the text can't be parsed on its own and the enclosing element should be reparsed instead
+   * @throws ReparseFileException if no enclosing element can be reparsed either, e.g. the changed text itself is broken,
+   *         so that the whole file is reparsed right away instead of trying every enclosing element
+   */
+  @Nullable
+  ASTNode reparse(@NotNull ASTNode node,
+                  @NotNull CharSequence newText,
+                  @NotNull TextRange changedRange,
+                  @NotNull Language fileLanguage,
+                  @NotNull Project project) throws ReparseFileException;
+
+  class ReparseFileException extends Exception {
+  }
+}
@@ -20,6 +20,7 @@ import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.editor.event.DocumentEvent;
 import com.intellij.util.ArrayUtil;
 import com.intellij.util.LocalTimeCounter;
+import com.intellij.util.text.ByteArrayCharSequence;
 import com.intellij.util.text.CharArrayCharSequence;
 import com.intellij.util.text.CharArrayUtil;
 import com.intellij.util.text.CharSequenceBackedByArray;
@@ -137,6 +138,21 @@ abstract class CharArray implements CharSequenceBackedByArray, Dumpable {
     assertConsistency();
   }
 
+  /**
+   * Creates an array over the given immutable text, the symbols are copied to the <code>char[]</code> buffer only on the first
+   * modification or direct {@link #getChars() array access}.
+   */
+  CharArray(final int bufferSize, @NotNull ByteArrayCharSequence text) {
+    this(bufferSize, ArrayUtil.EMPTY_CHAR_ARRAY, 0);
+    myOriginalSequence = text;
+    myArray = null;
+    myCount = text.length();
+    if (myDebug) {
+      myDebugArray.setText(text);
+    }
+    assertConsistency();
+  }
+
   public void setBufferSize(int bufferSize) {
     assert bufferSize >= 0 : bufferSize;
     myBufferSize = bufferSize;
@@ -389,8 +405,9 @@ abstract class CharArray implements CharSequenceBackedByArray, Dumpable {
     String str = myStringRef == null ? null : myStringRef.get();
     if (str == null) {
       if (!myHasDeferredChanges) {
-        if (myOriginalSequence != null) {
-          str = myOriginalSequence.toString();
+        CharSequence originalSequence = myOriginalSequence;
+        if (originalSequence != null) {
+          str = originalSequence.toString();
         }
         else {
           str = new String(myArray, myStart, myCount);
@@ -424,8 +441,9 @@ abstract class CharArray implements CharSequenceBackedByArray, Dumpable {
     i += myStart;
     final char result;
     if (!myHasDeferredChanges) {
-      if (myOriginalSequence != null) {
-        result = myOriginalSequence.charAt(i);
+      CharSequence originalSequence = myOriginalSequence;
+      if (originalSequence != null) {
+        result = originalSequence.charAt(i);
       }
       else {
         result = myArray[i];
@@ -450,8 +468,9 @@ abstract class CharArray implements CharSequenceBackedByArray, Dumpable {
     assertReadAccess();
     assertConsistency();
     if (start == 0 && end == length()) return this;
-    if (myOriginalSequence != null) {
-      return myOriginalSequence.subSequence(start, end);
+    CharSequence originalSequence = myOriginalSequence;
+    if (originalSequence != null) {
+      return originalSequence.subSequence(start, end);
     }
     flushDeferredChanged();
     return new CharArrayCharSequence(myArray, start, end);
@@ -487,11 +506,12 @@ abstract class CharArray implements CharSequenceBackedByArray, Dumpable {
     assertReadAccess();
     assertConsistency();
     flushDeferredChanged();
-    if (myOriginalSequence == null) {
+    CharSequence originalSequence = myOriginalSequence;
+    if (originalSequence == null) {
       System.arraycopy(myArray, myStart, dst, dstOffset, length());
     }
     else {
-      CharArrayUtil.getChars(myOriginalSequence, dst, dstOffset);
+      CharArrayUtil.getChars(originalSequence, dst, dstOffset);
     }
 
     if (myDebug && isDeferredChangeMode()) {
@@ -519,11 +539,12 @@ abstract class CharArray implements CharSequenceBackedByArray, Dumpable {
   private CharSequence doSubString(int start, int end) {
     if (start == end) return "";
     final CharSequence result;
-    if (myOriginalSequence == null) {
+    CharSequence originalSequence = myOriginalSequence;
+    if (originalSequence == null) {
       result = myDeferredChangesStorage.substring(myArray, start + myStart, end + myStart);
     }
     else {
-      result = myOriginalSequence.subSequence(start, end);
+      result = originalSequence.subSequence(start, end);
     }
     return result;
   }
@@ -36,6 +36,7 @@ import com.intellij.util.ArrayUtil;
 import com.intellij.util.LocalTimeCounter;
 import com.intellij.util.Processor;
 import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.text.ByteArrayCharSequence;
 import com.intellij.util.text.CharArrayUtil;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
@@ -86,7 +87,9 @@ public class DocumentImpl extends UserDataHolderBase implements DocumentEx {
 
   public DocumentImpl(@NotNull CharSequence chars, boolean forUseInNonAWTThread) {
     assertValidSeparators(chars);
-    myText = new MyCharArray(CharArrayUtil.fromSequence(chars), chars.length());
+    myText = chars instanceof ByteArrayCharSequence
+             ? new MyCharArray((ByteArrayCharSequence)chars)
+             : new MyCharArray(CharArrayUtil.fromSequence(chars), chars.length());
     myLineSet.documentCreated(this);
     setCyclicBufferSize(0);
     setModificationStamp(LocalTimeCounter.currentTime());
@@ -806,6 +809,10 @@ public class DocumentImpl extends UserDataHolderBase implements DocumentEx {
       super(0, chars, length);
     }
 
+    private MyCharArray(@NotNull ByteArrayCharSequence text) {
+      super(0, text);
+    }
+
     @Override
     @NotNull
     protected DocumentEvent beforeChangedUpdate(int offset,
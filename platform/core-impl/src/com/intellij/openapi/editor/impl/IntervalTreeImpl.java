@@ -15,11 +15,14 @@
  */
 package com.intellij.openapi.editor.impl;
 
+import com.intellij.openapi.application.Application;
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.editor.ex.DisposableIterator;
 import com.intellij.openapi.util.Getter;
 import com.intellij.openapi.util.ProperTextRange;
 import com.intellij.openapi.util.Ref;
 import com.intellij.openapi.util.Trinity;
+import com.intellij.util.CommonProcessors;
 import com.intellij.util.IncorrectOperationException;
 import com.intellij.util.Processor;
 import com.intellij.util.SmartList;
@@ -31,6 +34,7 @@ import org.jetbrains.annotations.NotNull;
 
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.ConcurrentModificationException;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -420,16 +424,50 @@ public abstract class IntervalTreeImpl<T extends MutableInterval> extends RedBla
     });
   }
 
+  /**
+   * Intervals are modified in the event dispatch thread: document changes update them under the write action, but highlighters
+   * are added and removed there without it. So a background reader makes the dispatch thread wait for the lock even when
+   * the reader holds a read action (e.g. a daemon pass walking highlighters). Background readers therefore collect the found
+   * intervals under the lock and run the processor after the lock is released, so a slow processor doesn't block the dispatch
+   * thread. The price is that all matching intervals are collected even if the processor stops at the first one.
+   * <p/>
+   * An interval removed after the lock is released is skipped if the removal is seen before the interval is processed,
+   * otherwise it is the same as being removed right after processing. Under a read action the offsets of the collected
+   * intervals can't change meanwhile since document changes need the write action.
+   */
+  private static boolean shouldProcessSnapshot() {
+    Application application = ApplicationManager.getApplication();
+    return application != null && !application.isDispatchThread();
+  }
+
+  @NotNull
+  private static <T> Processor<? super T> processorFor(@NotNull Processor<? super T> processor, List<T> snapshot) {
+    return snapshot == null ? processor : new CommonProcessors.CollectProcessor<T>(snapshot);
+  }
+
+  private static <T extends MutableInterval> boolean processSnapshot(@NotNull List<T> snapshot, @NotNull Processor<? super T> processor) {
+    //noinspection ForLoopReplaceableByForEach
+    for (int i = 0; i < snapshot.size(); i++) {
+      T t = snapshot.get(i);
+      // might have been removed after the lock was released
+      if (t.isValid() && !processor.process(t)) return false;
+    }
+    return true;
+  }
+
   @Override
   public boolean processOverlappingWith(int start, int end, @NotNull Processor<? super T> processor) {
+    List<T> snapshot = shouldProcessSnapshot() ? new ArrayList<T>() : null;
     try {
       l.readLock().lock();
       checkMax(true);
-      return processOverlappingWith(getRoot(), start, end, processor, modCount, 0);
+      boolean result = processOverlappingWith(getRoot(), start, end, processorFor(processor, snapshot), modCount, 0);
+      if (snapshot == null) return result;
     }
     finally {
       l.readLock().unlock();
     }
+    return processSnapshot(snapshot, processor);
   }
 
   private boolean processOverlappingWith(IntervalNode<T> root,
@@ -465,14 +503,17 @@ public abstract class IntervalTreeImpl<T extends MutableInterval> extends RedBla
   }
 
   public boolean processOverlappingWithOutside(int start, int end, @NotNull Processor<? super T> processor) {
+    List<T> snapshot = shouldProcessSnapshot() ? new ArrayList<T>() : null;
     try {
       l.readLock().lock();
       checkMax(true);
-      return processOverlappingWithOutside(getRoot(), start, end, processor, modCount, 0);
+      boolean result = processOverlappingWithOutside(getRoot(), start, end, processorFor(processor, snapshot), modCount, 0);
+      if (snapshot == null) return result;
     }
     finally {
       l.readLock().unlock();
     }
+    return processSnapshot(snapshot, processor);
   }
   private boolean processOverlappingWithOutside(IntervalNode<T> root,
                                                 int start,
@@ -506,14 +547,17 @@ public abstract class IntervalTreeImpl<T extends MutableInterval> extends RedBla
 
   @Override
   public boolean processContaining(int offset, @NotNull Processor<? super T> processor) {
+    List<T> snapshot = shouldProcessSnapshot() ? new ArrayList<T>() : null;
     try {
       l.readLock().lock();
       checkMax(true);
-      return processContaining(getRoot(), offset, processor, modCount, 0);
+      boolean result = processContaining(getRoot(), offset, processorFor(processor, snapshot), modCount, 0);
+      if (snapshot == null) return result;
     }
     finally {
       l.readLock().unlock();
     }
+    return processSnapshot(snapshot, processor);
   }
   private boolean processContaining(IntervalNode<T> root,
                                     int offset,
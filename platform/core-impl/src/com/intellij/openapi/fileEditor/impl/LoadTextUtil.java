@@ -27,10 +27,12 @@ import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.util.Trinity;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.CharsetToolkit;
+import com.intellij.openapi.vfs.PersistentFSConstants;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.openapi.vfs.encoding.EncodingRegistry;
 import com.intellij.testFramework.LightVirtualFile;
 import com.intellij.util.ArrayUtil;
+import com.intellij.util.text.ByteArrayCharSequence;
 import com.intellij.util.text.CharArrayUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -410,10 +412,48 @@ public final class LoadTextUtil {
       //noinspection HardCodedStringLiteral
       charset = Charset.forName("ISO-8859-1");
     }
+    if (bytes.length - startOffset > PersistentFSConstants.getMaxIntellisenseFileSize()) {
+      Pair<CharSequence, String> result = convertSingleByteText(bytes, charset, startOffset);
+      if (result != null) {
+        return result;
+      }
+    }
     CharBuffer charBuffer = charset.decode(byteBuffer);
     return convertLineSeparators(charBuffer);
   }
 
+  /**
+   * Large files are often plain ASCII logs or dumps, decoding them to <code>char[]</code> takes twice the memory of the file
+   * content. If every byte of the content denotes the symbol with the same code and there are no line separators to convert,
+   * the text is represented by the content bytes themselves.
+   *
+   * @return    text backed by the given bytes and detected line separator if the bytes can be used as is; <code>null</code> otherwise
+   */
+  @Nullable
+  private static Pair<CharSequence, String> convertSingleByteText(@NotNull byte[] bytes, @NotNull Charset charset, int startOffset) {
+    boolean latin1 = charset.name().equals("ISO-8859-1");
+    if (!latin1 && !isAsciiCompatible(charset)) {
+      return null;
+    }
+    boolean hasLineFeeds = false;
+    for (int i = startOffset; i < bytes.length; i++) {
+      byte b = bytes[i];
+      if (b == '\r' || b < 0 && !latin1) {
+        return null;
+      }
+      if (b == '\n') {
+        hasLineFeeds = true;
+      }
+    }
+    return Pair.<CharSequence, String>create(new ByteArrayCharSequence(bytes, startOffset, bytes.length), hasLineFeeds ? "\n" : null);
+  }
+
+  private static boolean isAsciiCompatible(@NotNull Charset charset) {
+    String name = charset.name();
+    return charset.equals(CharsetToolkit.UTF8_CHARSET) || name.equals("US-ASCII") || name.startsWith("ISO-8859-") ||
+           name.startsWith("windows-125");
+  }
+
   private static final Key<Boolean> CHARSET_WAS_DETECTED_FROM_BYTES = new Key<Boolean>("CHARSET_WAS_DETECTED_FROM_BYTES");
   public static boolean wasCharsetDetectedFromBytes(@NotNull VirtualFile virtualFile) {
     return virtualFile.getUserData(CHARSET_WAS_DETECTED_FROM_BYTES) != null;
@@ -38,6 +38,7 @@ import com.intellij.psi.impl.source.tree.*;
 import com.intellij.psi.templateLanguages.ITemplateDataElementType;
 import com.intellij.psi.text.BlockSupport;
 import com.intellij.psi.tree.IElementType;
+import com.intellij.psi.tree.IReparseableCompositeElementType;
 import com.intellij.psi.tree.IReparseableElementType;
 import com.intellij.testFramework.LightVirtualFile;
 import com.intellij.util.CharTable;
@@ -108,32 +109,46 @@ public class BlockSupportImpl extends BlockSupport {
 
     while (node != null && !(node instanceof FileElement)) {
       IElementType elementType = node.getElementType();
-      if (elementType instanceof IReparseableElementType) {
+      if (elementType instanceof IReparseableElementType || elementType instanceof IReparseableCompositeElementType) {
         final TextRange textRange = node.getTextRange();
-        final IReparseableElementType reparseable = (IReparseableElementType)elementType;
 
-        if (baseLanguage.isKindOf(reparseable.getLanguage())) {
+        if (baseLanguage.isKindOf(elementType.getLanguage())) {
           final int start = textRange.getStartOffset();
           final int end = start + textRange.getLength() + lengthShift;
           assertFileLength(file, newFileText, node, elementType, start, end);
 
           CharSequence newTextStr = newFileText.subSequence(start, end);
 
-          if (reparseable.isParsable(newTextStr, baseLanguage, project)) {
-            ASTNode chameleon = reparseable.createNode(newTextStr);
-            if (chameleon != null) {
-              DummyHolder holder = DummyHolderFactory.createHolder(fileImpl.getManager(), null, node.getPsi(), charTable);
-              holder.getTreeElement().rawAddChildren((TreeElement)chameleon);
+          ASTNode chameleon = null;
+          if (elementType instanceof IReparseableElementType) {
+            final IReparseableElementType reparseable = (IReparseableElementType)elementType;
+            if (reparseable.isParsable(newTextStr, baseLanguage, project)) {
+              chameleon = reparseable.createNode(newTextStr);
+            }
+          }
+          else {
+            TextRange changedRange = new TextRange(Math.max(startOffset - start, 0),
+                                                   Math.min(Math.max(endOffset + lengthShift - start, 0), newTextStr.length()));
+            try {
+              chameleon = ((IReparseableCompositeElementType)elementType).reparse(node, newTextStr, changedRange, baseLanguage, project);
+            }
+            catch (IReparseableCompositeElementType.ReparseFileException e) {
+              return makeFullParse(treeFileElement, newFileText, textLength, fileImpl, indicator);
+            }
+          }
 
-              if (holder.getTextLength() != newTextStr.length()) {
-                String details = ApplicationManager.getApplication().isInternal()
-                           ? "text=" + newTextStr + "; treeText=" + holder.getText() + ";"
-                           : "";
-                LOG.error("Inconsistent reparse: " + details + " type=" + elementType);
-              }
+          if (chameleon != null) {
+            DummyHolder holder = DummyHolderFactory.createHolder(fileImpl.getManager(), null, node.getPsi(), charTable);
+            holder.getTreeElement().rawAddChildren((TreeElement)chameleon);
 
-              return mergeTrees(fileImpl, node, chameleon, indicator);
+            if (holder.getTextLength() != newTextStr.length()) {
+              String details = ApplicationManager.getApplication().isInternal()
+                         ? "text=" + newTextStr + "; treeText=" + holder.getText() + ";"
+                         : "";
+              LOG.error("Inconsistent reparse: " + details + " type=" + elementType);
             }
+
+            return mergeTrees(fileImpl, node, chameleon, indicator);
           }
         }
       }
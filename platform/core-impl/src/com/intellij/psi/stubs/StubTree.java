@@ -32,7 +32,7 @@ import java.util.Map;
 public class StubTree {
   private static final Key<StubTree> STUB_TO_TREE_REFERENCE = Key.create("stub to tree reference");
   private final PsiFileStub myRoot;
-  private final List<StubElement<?>> myPlainList = new ArrayList<StubElement<?>>();
+  private final ArrayList<StubElement<?>> myPlainList = new ArrayList<StubElement<?>>();
 
   public StubTree(@NotNull final PsiFileStub root) {
     this(root, true);
@@ -41,6 +41,7 @@ public class StubTree {
   public StubTree(@NotNull final PsiFileStub root, final boolean withBackReference) {
     myRoot = root;
     enumerateStubs(root, myPlainList);
+    myPlainList.trimToSize();
     if (withBackReference) {
       myRoot.putUserData(STUB_TO_TREE_REFERENCE, this); // This will prevent soft references to stub tree to be collected before all of the stubs are collected.
     }
@@ -68,6 +68,8 @@ public class CompletionLookupArranger extends LookupArranger {
   private final CompletionProgressIndicator myProcess;
   @SuppressWarnings({"MismatchedQueryAndUpdateOfCollection"})
   private final Map<CompletionSorterImpl, Classifier<LookupElement>> myClassifiers = new LinkedHashMap<CompletionSorterImpl, Classifier<LookupElement>>();
+  private boolean myItemsSorted = true;
+  private boolean myItemsSortedAlphabetically;
 
   public CompletionLookupArranger(final CompletionParameters parameters, CompletionProgressIndicator process) {
     myParameters = parameters;
@@ -130,18 +132,24 @@ public class CompletionLookupArranger extends LookupArranger {
     final String invariant = presentation.getItemText() + "###" + presentation.getTailText() + "###" + presentation.getTypeText();
     element.putUserData(PRESENTATION_INVARIANT, invariant);
     super.addElement(lookup, element, presentation);
+    myItemsSorted = false;
   }
 
   private static boolean isAlphaSorted() {
     return UISettings.getInstance().SORT_LOOKUP_ELEMENTS_LEXICOGRAPHICALLY;
   }
 
-  @Override
-  public Pair<List<LookupElement>, Integer> arrangeItems(@NotNull Lookup lookup, boolean onExplicitAction) {
-    List<LookupElement> items = matchingItems(lookup);
-    Collections.sort(items, new Comparator<LookupElement>() {
+  /**
+   * Keeps {@link #myItems} in the sorting order, so that the matching items needn't be sorted anew on each typed letter.
+   * The sort is stable and the items sorted before form a single run for it, so mostly the items added since the last
+   * arrangement are compared.
+   */
+  private void ensureItemsSorted(final boolean alphaSorted) {
+    if (myItemsSorted && myItemsSortedAlphabetically == alphaSorted) return;
+
+    Collections.sort(myItems, new Comparator<LookupElement>() {
       public int compare(LookupElement o1, LookupElement o2) {
-        if (isAlphaSorted()) {
+        if (alphaSorted) {
           String invariant = PRESENTATION_INVARIANT.get(o1);
           assert invariant != null;
           return invariant.compareToIgnoreCase(PRESENTATION_INVARIANT.get(o2));
@@ -150,6 +158,15 @@ public class CompletionLookupArranger extends LookupArranger {
         return mySortingWeights.get(o1).compareTo(mySortingWeights.get(o2));
       }
     });
+    myItemsSorted = true;
+    myItemsSortedAlphabetically = alphaSorted;
+  }
+
+  @Override
+  public Pair<List<LookupElement>, Integer> arrangeItems(@NotNull Lookup lookup, boolean onExplicitAction) {
+    boolean alphaSorted = isAlphaSorted();
+    ensureItemsSorted(alphaSorted);
+    List<LookupElement> items = matchingItems(lookup);
 
     MultiMap<CompletionSorterImpl, LookupElement> inputBySorter = groupInputBySorter(items);
 
@@ -165,7 +182,7 @@ public class CompletionLookupArranger extends LookupArranger {
     myFrozenItems.retainAll(items);
     model.addAll(myFrozenItems);
 
-    if (!isAlphaSorted()) {
+    if (!alphaSorted) {
       for (int i = 0; i < byRelevance.size() && model.size() < MAX_PREFERRED_COUNT; i++) {
         model.add(byRelevance.get(i));
       }
@@ -181,7 +198,7 @@ public class CompletionLookupArranger extends LookupArranger {
       myFrozenItems.addAll(model);
     }
 
-    if (isAlphaSorted()) {
+    if (alphaSorted) {
       model.addAll(items);
     } else  {
       model.addAll(byRelevance);
@@ -37,11 +37,13 @@ import com.intellij.psi.FileViewProvider;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiErrorElement;
 import com.intellij.psi.PsiFile;
+import gnu.trove.THashMap;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author yole
@@ -56,6 +58,10 @@ public class DefaultHighlightVisitor implements HighlightVisitor, DumbAware {
   private final boolean myRunAnnotators;
   private final DumbService myDumbService;
   private HighlightInfoHolder myHolder;
+  /**
+   * Wall time spent by every annotator during the current {@link #analyze} call, reported to {@link HighlightingTimings} at its end
+   */
+  private final Map<Annotator, long[]> myAnnotatorTimes = new THashMap<Annotator, long[]>();
 
   @SuppressWarnings("UnusedDeclaration")
   public DefaultHighlightVisitor(@NotNull Project project) {
@@ -88,6 +94,7 @@ public class DefaultHighlightVisitor implements HighlightVisitor, DumbAware {
       myAnnotationHolder.clear();
       myAnnotationHolder = null;
       myHolder = null;
+      reportAnnotatorTimes();
     }
     return true;
   }
@@ -155,8 +162,22 @@ public class DefaultHighlightVisitor implements HighlightVisitor, DumbAware {
 
       ProgressManager.checkCanceled();
 
+      long start = System.nanoTime();
       annotator.annotate(element, myAnnotationHolder);
+      long[] time = myAnnotatorTimes.get(annotator);
+      if (time == null) {
+        myAnnotatorTimes.put(annotator, time = new long[1]);
+      }
+      time[0] += System.nanoTime() - start;
+    }
+  }
+
+  private void reportAnnotatorTimes() {
+    for (Map.Entry<Annotator, long[]> entry : myAnnotatorTimes.entrySet()) {
+      String name = entry.getKey().getClass().getName();
+      HighlightingTimings.getInstance().record(HighlightingTimings.Kind.ANNOTATOR, name, entry.getValue()[0], -1);
     }
+    myAnnotatorTimes.clear();
   }
 
   private void visitErrorElement(final PsiErrorElement element) {
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2000-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.codeInsight.daemon.impl;
+
+import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accumulates time spent by the daemon in highlighting passes, local inspections and annotators since the start or the last
+ * {@link #reset()}.
+ * <p/>
+ * Thread-safe.
+ */
+public class HighlightingTimings {
+  private static final HighlightingTimings ourInstance = new HighlightingTimings();
+  private static final ThreadMXBean ourThreadMXBean = ManagementFactory.getThreadMXBean();
+  private static final boolean ourCpuTimeSupported = ourThreadMXBean.isCurrentThreadCpuTimeSupported();
+
+  public enum Kind {PASS, INSPECTION, ANNOTATOR}
+
+  private final ConcurrentMap<Key, Accumulator> myAccumulators = new ConcurrentHashMap<Key, Accumulator>();
+
+  @NotNull
+  public static HighlightingTimings getInstance() {
+    return ourInstance;
+  }
+
+  /**
+   * @return CPU time of the current thread in nanoseconds or -1 if the JVM doesn't measure it
+   */
+  public static long getCurrentThreadCpuTime() {
+    return ourCpuTimeSupported ? ourThreadMXBean.getCurrentThreadCpuTime() : -1;
+  }
+
+  /**
+   * @param cpuNanos  CPU time spent or a negative value if it's unknown
+   */
+  public void record(@NotNull Kind kind, @NotNull String name, long wallNanos, long cpuNanos) {
+    Key key = new Key(kind, name);
+    Accumulator accumulator = myAccumulators.get(key);
+    if (accumulator == null) {
+      Accumulator newAccumulator = new Accumulator();
+      accumulator = myAccumulators.putIfAbsent(key, newAccumulator);
+      if (accumulator == null) accumulator = newAccumulator;
+    }
+    accumulator.count.incrementAndGet();
+    accumulator.wallNanos.addAndGet(wallNanos);
+    if (cpuNanos >= 0) {
+      accumulator.cpuNanos.addAndGet(cpuNanos);
+    }
+  }
+
+  /**
+   * @return accumulated timings, the most time consuming first
+   */
+  @NotNull
+  public List<Timing> getTimings() {
+    List<Timing> result = new ArrayList<Timing>(myAccumulators.size());
+    for (Map.Entry<Key, Accumulator> entry : myAccumulators.entrySet()) {
+      Accumulator accumulator = entry.getValue();
+      result.add(new Timing(entry.getKey().kind, entry.getKey().name, accumulator.count.get(), accumulator.wallNanos.get(),
+                            ourCpuTimeSupported && entry.getKey().kind != Kind.ANNOTATOR ? accumulator.cpuNanos.get() : -1));
+    }
+    Collections.sort(result, new Comparator<Timing>() {
+      @Override
+      public int compare(Timing o1, Timing o2) {
+        return o1.wallNanos < o2.wallNanos ? 1 : o1.wallNanos == o2.wallNanos ? 0 : -1;
+      }
+    });
+    return result;
+  }
+
+  public void reset() {
+    myAccumulators.clear();
+  }
+
+  public static class Timing {
+    public final Kind kind;
+    public final String name;
+    public final long count;
+    public final long wallNanos;
+    /**
+     * -1 if not measured
+     */
+    public final long cpuNanos;
+
+    private Timing(@NotNull Kind kind, @NotNull String name, long count, long wallNanos, long cpuNanos) {
+      this.kind = kind;
+      this.name = name;
+      this.count = count;
+      this.wallNanos = wallNanos;
+      this.cpuNanos = cpuNanos;
+    }
+
+    @NonNls
+    @Override
+    public String toString() {
+      return kind + " " + name + ": " + count + " runs, wall " + wallNanos / 1000000 + "ms" +
+             (cpuNanos < 0 ? "" : ", cpu " + cpuNanos / 1000000 + "ms");
+    }
+  }
+
+  private static class Key {
+    private final Kind kind;
+    private final String name;
+
+    private Key(@NotNull Kind kind, @NotNull String name) {
+      this.kind = kind;
+      this.name = name;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof Key)) return false;
+      Key key = (Key)o;
+      return kind == key.kind && name.equals(key.name);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * kind.hashCode() + name.hashCode();
+    }
+  }
+
+  private static class Accumulator {
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong wallNanos = new AtomicLong();
+    private final AtomicLong cpuNanos = new AtomicLong();
+  }
+}
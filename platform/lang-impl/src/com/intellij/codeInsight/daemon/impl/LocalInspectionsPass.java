@@ -319,7 +319,10 @@ public class LocalInspectionsPass extends ProgressableTextEditorHighlightingPass
           }
         };
         Set<String> languages = (Set<String>)pair.getValue();
+        long start = System.nanoTime();
+        long cpuStart = HighlightingTimings.getCurrentThreadCpuTime();
         PsiElementVisitor visitor = createVisitorAndAcceptElements(tool, holder, isOnTheFly, session, elements, languages);
+        recordTiming(wrapper, start, cpuStart);
 
         synchronized (init) {
           init.add(new InspectionContext(wrapper, holder, visitor, languages));
@@ -371,9 +374,12 @@ public class LocalInspectionsPass extends ProgressableTextEditorHighlightingPass
           
           indicator.checkCanceled();
           ApplicationManager.getApplication().assertReadAccessAllowed();
+          long start = System.nanoTime();
+          long cpuStart = HighlightingTimings.getCurrentThreadCpuTime();
           acceptElements(elements, context.visitor, context.languageIds);
           advanceProgress(1);
           context.tool.getTool().inspectionFinished(session, context.holder);
+          recordTiming(context.tool, start, cpuStart);
 
           if (context.holder.hasResults()) {
             appendDescriptors(myFile, context.holder.getResults(), context.tool);
@@ -388,6 +394,12 @@ public class LocalInspectionsPass extends ProgressableTextEditorHighlightingPass
     inspectInjectedPsi(elements, isOnTheFly, indicator, iManager, false, checkDumbAwareness, wrappers);
   }
 
+  private static void recordTiming(@NotNull LocalInspectionToolWrapper wrapper, long start, long cpuStart) {
+    long cpuEnd = cpuStart < 0 ? -1 : HighlightingTimings.getCurrentThreadCpuTime();
+    HighlightingTimings.getInstance().record(HighlightingTimings.Kind.INSPECTION, wrapper.getShortName(), System.nanoTime() - start,
+                                             cpuEnd < 0 ? -1 : cpuEnd - cpuStart);
+  }
+
   private static void acceptElements(@NotNull List<PsiElement> elements,
                                      @NotNull PsiElementVisitor elementVisitor,
                                      @Nullable Set<String> languages) {
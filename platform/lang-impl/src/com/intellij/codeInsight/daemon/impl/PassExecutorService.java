@@ -354,7 +354,14 @@ public abstract class PassExecutorService implements Disposable {
                 }
 
                 if (!myUpdateProgress.isCanceled()) {
-                  myPass.collectInformation(myUpdateProgress);
+                  long start = System.nanoTime();
+                  long cpuStart = HighlightingTimings.getCurrentThreadCpuTime();
+                  try {
+                    myPass.collectInformation(myUpdateProgress);
+                  }
+                  finally {
+                    recordTiming(myPass.getClass().getName(), start, cpuStart);
+                  }
                 }
               }
               catch (ProcessCanceledException e) {
@@ -435,7 +442,10 @@ public abstract class PassExecutorService implements Disposable {
           if (!applied) {
             applied = true;
             log(updateProgress, pass, " Applied");
+            long start = System.nanoTime();
+            long cpuStart = HighlightingTimings.getCurrentThreadCpuTime();
             pass.applyInformationToEditor();
+            recordTiming(pass.getClass().getName() + " (apply)", start, cpuStart);
           }
           afterApplyInformationToEditor(pass, fileEditor, updateProgress);
 
@@ -462,6 +472,12 @@ public abstract class PassExecutorService implements Disposable {
     }
   }
 
+  private static void recordTiming(@NotNull String passName, long start, long cpuStart) {
+    long cpuEnd = cpuStart < 0 ? -1 : HighlightingTimings.getCurrentThreadCpuTime();
+    HighlightingTimings.getInstance().record(HighlightingTimings.Kind.PASS, passName, System.nanoTime() - start,
+                                             cpuEnd < 0 ? -1 : cpuEnd - cpuStart);
+  }
+
   protected boolean isDisposed() {
     return isDisposed;
   }
@@ -43,6 +43,7 @@ import com.intellij.openapi.project.ProjectUtil;
 import com.intellij.openapi.ui.MessageType;
 import com.intellij.openapi.util.*;
 import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.registry.Registry;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.openapi.wm.ToolWindowId;
 import com.intellij.openapi.wm.ToolWindowManager;
@@ -567,7 +568,6 @@ public class GlobalInspectionContextImpl extends UserDataHolderBase implements G
     }
     if (RUN_GLOBAL_TOOLS_ONLY) return;
 
-    final PsiManager psiManager = PsiManager.getInstance(myProject);
     final Set<VirtualFile> localScopeFiles = scope.toSearchScope() instanceof LocalSearchScope ? new THashSet<VirtualFile>() : null;
     for (Tools tools : globalSimpleTools) {
       GlobalInspectionToolWrapper toolWrapper = (GlobalInspectionToolWrapper)tools.getTool();
@@ -576,67 +576,134 @@ public class GlobalInspectionContextImpl extends UserDataHolderBase implements G
     }
 
     final Map<String, DescriptorProviderInspection> map = getInspectionWrappersMap(localTools);
+    if (Registry.is("inspection.batch.parallel")) {
+      inspectFilesConcurrently(scope, localScopeFiles, manager, localTools, globalSimpleTools, map);
+    }
+    else {
+      scope.accept(new PsiElementVisitor() {
+        @Override
+        public void visitFile(final PsiFile file) {
+          if (isDuplicate(file, localScopeFiles)) return;
+          inspectFile(file, manager, localTools, globalSimpleTools, map);
+        }
+      });
+    }
+    for (Tools tools : globalSimpleTools) {
+      GlobalInspectionToolWrapper toolWrapper = (GlobalInspectionToolWrapper)tools.getTool();
+      GlobalSimpleInspectionTool tool = (GlobalSimpleInspectionTool)toolWrapper.getTool();
+      GlobalInspectionToolWrapper problemDescriptionProcessor = getProblemDescriptionProcessor(toolWrapper, map);
+      tool.inspectionFinished(manager, this, problemDescriptionProcessor);
+    }
+  }
+
+  /**
+   * Inspects files of the scope in several threads. Files are loaded by the worker threads, so the number of PSI trees being
+   * inspected at once doesn't exceed the number of the threads; problems are collected by the tool wrappers which are thread-safe.
+   */
+  private void inspectFilesConcurrently(@NotNull AnalysisScope scope,
+                                        @Nullable final Set<VirtualFile> localScopeFiles,
+                                        @NotNull final InspectionManager manager,
+                                        @NotNull final List<Tools> localTools,
+                                        @NotNull final List<Tools> globalSimpleTools,
+                                        @NotNull final Map<String, DescriptorProviderInspection> wrappersMap) {
+    final List<VirtualFile> files = new ArrayList<VirtualFile>();
     scope.accept(new PsiElementVisitor() {
       @Override
       public void visitFile(final PsiFile file) {
         final VirtualFile virtualFile = file.getVirtualFile();
-        if (virtualFile != null) {
-          incrementJobDoneAmount(LOCAL_ANALYSIS, ProjectUtil.calcRelativeToProjectPath(virtualFile, myProject));
-          if (SingleRootFileViewProvider.isTooLarge(virtualFile)) return;
-          if (localScopeFiles != null && !localScopeFiles.add(virtualFile)) return;
+        if (virtualFile != null && !isDuplicate(file, localScopeFiles)) {
+          files.add(virtualFile);
         }
+      }
+    });
 
-        final FileViewProvider viewProvider = psiManager.findViewProvider(virtualFile);
-        final com.intellij.openapi.editor.Document document = viewProvider == null ? null : viewProvider.getDocument();
-        if (document == null || virtualFile.getFileType().isBinary()) return; //do not inspect binary files
-        final LocalInspectionsPass pass = new LocalInspectionsPass(file, document, 0,
-                                                                   file.getTextLength(), LocalInspectionsPass.EMPTY_PRIORITY_RANGE, true);
-        try {
-          final List<LocalInspectionToolWrapper> lTools = new ArrayList<LocalInspectionToolWrapper>();
-          for (Tools tool : localTools) {
-            final LocalInspectionToolWrapper enabledTool = (LocalInspectionToolWrapper)tool.getEnabledTool(file);
-            if (enabledTool != null) {
-              lTools.add(enabledTool);
-            }
-          }
-          pass.doInspectInBatch((InspectionManagerEx)manager, lTools);
-
-          JobUtil.invokeConcurrentlyUnderProgress(globalSimpleTools, myProgressIndicator, false, new Processor<Tools>() {
-              @Override
-              public boolean process(Tools tools) {
-                GlobalInspectionToolWrapper toolWrapper = (GlobalInspectionToolWrapper)tools.getTool();
-                GlobalSimpleInspectionTool tool = (GlobalSimpleInspectionTool)toolWrapper.getTool();
-                ProblemsHolder problemsHolder = new ProblemsHolder(manager, file, false);
-                GlobalInspectionToolWrapper problemDescriptionProcessor = getProblemDescriptionProcessor(toolWrapper, map);
-                tool.checkFile(file, manager, problemsHolder, GlobalInspectionContextImpl.this, problemDescriptionProcessor);
-                LocalInspectionToolWrapper.addProblemDescriptors(problemsHolder.getResults(), false, GlobalInspectionContextImpl.this, null,
-                                                                 CONVERT, toolWrapper);
-                return true;
+    final PsiManager psiManager = PsiManager.getInstance(myProject);
+    final boolean completed =
+      JobUtil.invokeConcurrentlyUnderProgress(files, myProgressIndicator, false, new Processor<VirtualFile>() {
+        @Override
+        public boolean process(final VirtualFile virtualFile) {
+          ApplicationManager.getApplication().runReadAction(new Runnable() {
+            @Override
+            public void run() {
+              if (!virtualFile.isValid()) return;
+              final PsiFile file = psiManager.findFile(virtualFile);
+              if (file != null) {
+                inspectFile(file, manager, localTools, globalSimpleTools, wrappersMap);
               }
-            });
-        }
-        catch (ProcessCanceledException e) {
-          throw e;
-        }
-        catch (IndexNotReadyException e) {
-          throw e;
-        }
-        catch (Exception e) {
-          LOG.error("In file: " + file, e);
-        }
-        catch (AssertionError e) {
-          LOG.error("In file: " + file, e);
+            }
+          });
+          return true;
         }
-        finally {
-          InjectedLanguageManager.getInstance(myProject).dropFileCaches(file);
+      });
+    if (!completed) {
+      throw new ProcessCanceledException();
+    }
+  }
+
+  /**
+   * Files of a local scope may be visited several times, they are inspected once but counted in the progress every time
+   */
+  private boolean isDuplicate(@NotNull PsiFile file, @Nullable Set<VirtualFile> localScopeFiles) {
+    final VirtualFile virtualFile = file.getVirtualFile();
+    if (virtualFile == null || localScopeFiles == null || localScopeFiles.add(virtualFile)) return false;
+    incrementJobDoneAmount(LOCAL_ANALYSIS, ProjectUtil.calcRelativeToProjectPath(virtualFile, myProject));
+    return true;
+  }
+
+  private void inspectFile(@NotNull final PsiFile file,
+                           @NotNull final InspectionManager manager,
+                           @NotNull List<Tools> localTools,
+                           @NotNull List<Tools> globalSimpleTools,
+                           @NotNull final Map<String, DescriptorProviderInspection> wrappersMap) {
+    final VirtualFile virtualFile = file.getVirtualFile();
+    if (virtualFile != null) {
+      incrementJobDoneAmount(LOCAL_ANALYSIS, ProjectUtil.calcRelativeToProjectPath(virtualFile, myProject));
+      if (SingleRootFileViewProvider.isTooLarge(virtualFile)) return;
+    }
+
+    final FileViewProvider viewProvider = PsiManager.getInstance(myProject).findViewProvider(virtualFile);
+    final com.intellij.openapi.editor.Document document = viewProvider == null ? null : viewProvider.getDocument();
+    if (document == null || virtualFile.getFileType().isBinary()) return; //do not inspect binary files
+    final LocalInspectionsPass pass = new LocalInspectionsPass(file, document, 0,
+                                                               file.getTextLength(), LocalInspectionsPass.EMPTY_PRIORITY_RANGE, true);
+    try {
+      final List<LocalInspectionToolWrapper> lTools = new ArrayList<LocalInspectionToolWrapper>();
+      for (Tools tool : localTools) {
+        final LocalInspectionToolWrapper enabledTool = (LocalInspectionToolWrapper)tool.getEnabledTool(file);
+        if (enabledTool != null) {
+          lTools.add(enabledTool);
         }
       }
-    });
-    for (Tools tools : globalSimpleTools) {
-      GlobalInspectionToolWrapper toolWrapper = (GlobalInspectionToolWrapper)tools.getTool();
-      GlobalSimpleInspectionTool tool = (GlobalSimpleInspectionTool)toolWrapper.getTool();
-      GlobalInspectionToolWrapper problemDescriptionProcessor = getProblemDescriptionProcessor(toolWrapper, map);
-      tool.inspectionFinished(manager, this, problemDescriptionProcessor);
+      pass.doInspectInBatch((InspectionManagerEx)manager, lTools);
+
+      JobUtil.invokeConcurrentlyUnderProgress(globalSimpleTools, myProgressIndicator, false, new Processor<Tools>() {
+          @Override
+          public boolean process(Tools tools) {
+            GlobalInspectionToolWrapper toolWrapper = (GlobalInspectionToolWrapper)tools.getTool();
+            GlobalSimpleInspectionTool tool = (GlobalSimpleInspectionTool)toolWrapper.getTool();
+            ProblemsHolder problemsHolder = new ProblemsHolder(manager, file, false);
+            GlobalInspectionToolWrapper problemDescriptionProcessor = getProblemDescriptionProcessor(toolWrapper, wrappersMap);
+            tool.checkFile(file, manager, problemsHolder, GlobalInspectionContextImpl.this, problemDescriptionProcessor);
+            LocalInspectionToolWrapper.addProblemDescriptors(problemsHolder.getResults(), false, GlobalInspectionContextImpl.this, null,
+                                                             CONVERT, toolWrapper);
+            return true;
+          }
+        });
+    }
+    catch (ProcessCanceledException e) {
+      throw e;
+    }
+    catch (IndexNotReadyException e) {
+      throw e;
+    }
+    catch (Exception e) {
+      LOG.error("In file: " + file, e);
+    }
+    catch (AssertionError e) {
+      LOG.error("In file: " + file, e);
+    }
+    finally {
+      InjectedLanguageManager.getInstance(myProject).dropFileCaches(file);
     }
   }
 
@@ -797,7 +864,7 @@ public class GlobalInspectionContextImpl extends UserDataHolderBase implements G
   }
 
   @Override
-  public void incrementJobDoneAmount(JobDescriptor job, String message) {
+  public synchronized void incrementJobDoneAmount(JobDescriptor job, String message) {
     if (myProgressIndicator == null) return;
 
     ProgressManager.checkCanceled();
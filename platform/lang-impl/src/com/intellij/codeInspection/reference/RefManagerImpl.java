@@ -41,6 +41,7 @@ import com.intellij.openapi.extensions.Extensions;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.project.ProjectUtil;
+import com.intellij.openapi.util.Comparing;
 import com.intellij.openapi.util.Computable;
 import com.intellij.openapi.util.Key;
 import com.intellij.openapi.util.Segment;
@@ -81,6 +82,8 @@ public class RefManagerImpl extends RefManager {
   private final HashMap<Language, RefManagerExtension> myLanguageExtensions = new HashMap<Language, RefManagerExtension>();
 
   private final JBReentrantReadWriteLock myLock = LockFactory.createReadWriteLock();
+  // guards creation of reference elements and modules, which may be requested by inspections running in several threads
+  private final Object myCreationLock = new Object();
 
   public RefManagerImpl(Project project, AnalysisScope scope, GlobalInspectionContextImpl context) {
     myDeclarationsFound = false;
@@ -317,7 +320,8 @@ public class RefManagerImpl extends RefManager {
         VirtualFile v1 = ((RefElementImpl)o1).getVirtualFile();
         VirtualFile v2 = ((RefElementImpl)o2).getVirtualFile();
 
-        return (v1 != null ? v1.hashCode() : 0) - (v2 != null ? v2.hashCode() : 0);
+        final int result = (v1 != null ? v1.hashCode() : 0) - (v2 != null ? v2.hashCode() : 0);
+        return result != 0 ? result : Comparing.compare(o1.getName(), o2.getName());
       }
     });
 
@@ -420,6 +424,22 @@ public class RefManagerImpl extends RefManager {
       return null;
     }
 
+    // the read action is taken before the lock: a thread waiting for the read action while holding the lock would deadlock
+    // with a pending write action and a reader waiting for the lock
+    return ApplicationManager.getApplication().runReadAction(new Computable<RefElement>() {
+      @Nullable
+      public RefElement compute() {
+        synchronized (myCreationLock) {
+          RefElement ref = getFromRefTable(elem);
+          if (ref != null) return ref;
+          return createReference(elem);
+        }
+      }
+    });
+  }
+
+  @Nullable
+  private RefElement createReference(final PsiElement elem) {
     final RefElementImpl refElement = ApplicationManager.getApplication().runReadAction(new Computable<RefElementImpl>() {
       @Nullable
       public RefElementImpl compute() {
@@ -521,15 +541,17 @@ public class RefManagerImpl extends RefManager {
     if (module == null) {
       return null;
     }
-    if (myModules == null) {
-      myModules = new THashMap<Module, RefModule>();
-    }
-    RefModule refModule = myModules.get(module);
-    if (refModule == null) {
-      refModule = new RefModuleImpl(module, this);
-      myModules.put(module, refModule);
+    synchronized (myCreationLock) {
+      if (myModules == null) {
+        myModules = new THashMap<Module, RefModule>();
+      }
+      RefModule refModule = myModules.get(module);
+      if (refModule == null) {
+        refModule = new RefModuleImpl(module, this);
+        myModules.put(module, refModule);
+      }
+      return refModule;
     }
-    return refModule;
   }
 
   public boolean belongsToScope(final PsiElement psiElement) {
@@ -38,6 +38,7 @@ import java.util.*;
 public class DefaultChooseByNameItemProvider implements ChooseByNameItemProvider {
   private static final Logger LOG = Logger.getInstance("#com.intellij.ide.util.gotoByName.ChooseByNameIdea");
   private WeakReference<PsiElement> myContext;
+  private volatile NameDictionary myDictionary;
 
   public DefaultChooseByNameItemProvider(PsiElement context) {
     myContext = new WeakReference<PsiElement>(context);
@@ -219,7 +220,7 @@ public class DefaultChooseByNameItemProvider implements ChooseByNameItemProvider
     return res;
   }
 
-  private static void getNamesByPattern(ChooseByNameBase base,
+  private void getNamesByPattern(ChooseByNameBase base,
                                  String[] names,
                                  @Nullable Computable<Boolean> cancelled,
                                  final List<String> list,
@@ -236,6 +237,11 @@ public class DefaultChooseByNameItemProvider implements ChooseByNameItemProvider
     final MinusculeMatcher matcher = buildPatternMatcher(pattern);
 
     try {
+      if (!(base.getModel() instanceof CustomMatcherModel)) {
+        getDictionary(names).collectMatches(pattern, matcher, cancelled, list);
+        return;
+      }
+
       for (String name : names) {
         if (cancelled != null && cancelled.compute()) {
           break;
@@ -250,6 +256,14 @@ public class DefaultChooseByNameItemProvider implements ChooseByNameItemProvider
     }
   }
 
+  private NameDictionary getDictionary(String[] names) {
+    NameDictionary dictionary = myDictionary;
+    if (dictionary == null || !dictionary.isBuiltFor(names)) {
+      myDictionary = dictionary = new NameDictionary(names);
+    }
+    return dictionary;
+  }
+
   private static boolean matches(ChooseByNameBase base, String pattern, MinusculeMatcher matcher, String name) {
     boolean matches = false;
     if (name != null) {
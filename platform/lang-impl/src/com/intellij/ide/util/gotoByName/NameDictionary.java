@@ -0,0 +1,233 @@
+/*
+ * Copyright 2000-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.ide.util.gotoByName;
+
+import com.intellij.concurrency.JobUtil;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.codeStyle.MinusculeMatcher;
+import com.intellij.util.Processor;
+import gnu.trove.TIntArrayList;
+import gnu.trove.TIntObjectHashMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Names of a goto model prepared for matching against the patterns typed by user.
+ * <p/>
+ * Every name is bucketed by its first letter and gets a mask of letters and digits it contains, so the names which
+ * definitely cannot match a pattern are skipped without running the matcher. The result of the previous pattern is
+ * remembered, and when user types more characters only the names matched before are checked again. Large candidate
+ * sets are matched concurrently.
+ */
+class NameDictionary {
+  private static final int PARALLEL_THRESHOLD = 50000;
+  private static final int CHUNK_SIZE = 10000;
+
+  private final String[] myNames;
+  private final long[] myMasks;
+  private final TIntObjectHashMap<int[]> myBuckets = new TIntObjectHashMap<int[]>();
+  /**
+   * Names which don't start with a letter or a digit, they may match any pattern
+   */
+  private final int[] myOtherNames;
+
+  /**
+   * Results of the last matched patterns with and without a leading star, the provider alternates between them
+   * when searching in any place
+   */
+  private final String[] myLastPatterns = new String[2];
+  private final int[][] myLastMatches = new int[2][];
+
+  NameDictionary(@NotNull String[] names) {
+    myNames = names;
+    myMasks = new long[names.length];
+    TIntObjectHashMap<TIntArrayList> buckets = new TIntObjectHashMap<TIntArrayList>();
+    TIntArrayList others = new TIntArrayList();
+    for (int i = 0; i < names.length; i++) {
+      String name = names[i];
+      if (name == null) continue;
+      myMasks[i] = getMask(name);
+      if (name.isEmpty() || !Character.isLetterOrDigit(name.charAt(0))) {
+        others.add(i);
+        continue;
+      }
+      char key = StringUtil.toLowerCase(name.charAt(0));
+      TIntArrayList bucket = buckets.get(key);
+      if (bucket == null) {
+        buckets.put(key, bucket = new TIntArrayList());
+      }
+      bucket.add(i);
+    }
+    for (int key : buckets.keys()) {
+      myBuckets.put(key, buckets.get(key).toNativeArray());
+    }
+    myOtherNames = others.toNativeArray();
+  }
+
+  boolean isBuiltFor(String[] names) {
+    return myNames == names;
+  }
+
+  /**
+   * Collects names matching the pattern to the list, nothing is collected if the computation is cancelled
+   */
+  void collectMatches(@NotNull String pattern,
+                      @NotNull final MinusculeMatcher matcher,
+                      @Nullable final Computable<Boolean> cancelled,
+                      @NotNull List<String> list) {
+    final int[] candidates = getCandidates(pattern);
+    final long patternMask = getMask(pattern);
+
+    final int[] matches;
+    if (candidates.length < PARALLEL_THRESHOLD) {
+      matches = matchChunk(candidates, 0, candidates.length, patternMask, matcher, cancelled);
+    }
+    else {
+      List<int[]> chunks = new ArrayList<int[]>();
+      for (int start = 0; start < candidates.length; start += CHUNK_SIZE) {
+        chunks.add(new int[]{start, Math.min(start + CHUNK_SIZE, candidates.length)});
+      }
+      final int[][] chunkMatches = new int[chunks.size()][];
+      boolean completed = JobUtil.invokeConcurrentlyUnderProgress(chunks, ProgressManager.getInstance().getProgressIndicator(), false,
+                                                                  new Processor<int[]>() {
+        @Override
+        public boolean process(int[] chunk) {
+          int[] result = matchChunk(candidates, chunk[0], chunk[1], patternMask, matcher, cancelled);
+          chunkMatches[chunk[0] / CHUNK_SIZE] = result;
+          return result != null;
+        }
+      });
+      matches = completed ? concat(chunkMatches) : null;
+    }
+
+    if (matches == null) return;
+    synchronized (this) {
+      int slot = getSlot(pattern);
+      myLastPatterns[slot] = trimTrailingStars(pattern);
+      myLastMatches[slot] = matches;
+    }
+    for (int index : matches) {
+      list.add(myNames[index]);
+    }
+  }
+
+  private int[] getCandidates(String pattern) {
+    synchronized (this) {
+      int slot = getSlot(pattern);
+      String lastPattern = myLastPatterns[slot];
+      if (lastPattern != null && canNarrow(lastPattern, trimTrailingStars(pattern))) {
+        return myLastMatches[slot];
+      }
+    }
+
+    if (pattern.isEmpty() || !Character.isLetterOrDigit(pattern.charAt(0))) {
+      int[] all = new int[myNames.length];
+      for (int i = 0; i < all.length; i++) {
+        all[i] = i;
+      }
+      return all;
+    }
+
+    // the matcher requires the first pattern letter to match the first letter of the name
+    int[] bucket = myBuckets.get(StringUtil.toLowerCase(pattern.charAt(0)));
+    if (bucket == null) {
+      return myOtherNames;
+    }
+    int[] candidates = new int[bucket.length + myOtherNames.length];
+    System.arraycopy(bucket, 0, candidates, 0, bucket.length);
+    System.arraycopy(myOtherNames, 0, candidates, bucket.length, myOtherNames.length);
+    return candidates;
+  }
+
+  private static int getSlot(String pattern) {
+    return pattern.startsWith("*") ? 1 : 0;
+  }
+
+  /**
+   * Trailing stars match anything, so they don't affect the set of matching names
+   */
+  private static String trimTrailingStars(String pattern) {
+    int end = pattern.length();
+    while (end > 0 && pattern.charAt(end - 1) == '*') {
+      end--;
+    }
+    return pattern.substring(0, end);
+  }
+
+  /**
+   * Every name matching the longer pattern matches its prefix as well unless the prefix ends with a space or some other
+   * character having a special meaning
+   */
+  private static boolean canNarrow(String previousPattern, String pattern) {
+    return !previousPattern.isEmpty() &&
+           pattern.startsWith(previousPattern) &&
+           Character.isLetterOrDigit(previousPattern.charAt(previousPattern.length() - 1));
+  }
+
+  @Nullable
+  private int[] matchChunk(int[] candidates, int start, int end, long patternMask, MinusculeMatcher matcher,
+                           @Nullable Computable<Boolean> cancelled) {
+    TIntArrayList result = new TIntArrayList();
+    for (int i = start; i < end; i++) {
+      if (cancelled != null && (i & 0xff) == 0 && cancelled.compute()) {
+        return null;
+      }
+      int index = candidates[i];
+      String name = myNames[index];
+      if (name != null && (myMasks[index] & patternMask) == patternMask && matcher.matches(name)) {
+        result.add(index);
+      }
+    }
+    return result.toNativeArray();
+  }
+
+  private static int[] concat(int[][] arrays) {
+    int length = 0;
+    for (int[] array : arrays) {
+      length += array.length;
+    }
+    int[] result = new int[length];
+    int offset = 0;
+    for (int[] array : arrays) {
+      System.arraycopy(array, 0, result, offset, array.length);
+      offset += array.length;
+    }
+    return result;
+  }
+
+  /**
+   * The matcher compares characters ignoring case, and every letter or digit of the pattern must be matched by
+   * some character of the name
+   */
+  private static long getMask(String s) {
+    long mask = 0;
+    for (int i = 0; i < s.length(); i++) {
+      char c = StringUtil.toLowerCase(s.charAt(i));
+      if (c >= 'a' && c <= 'z') {
+        mask |= 1L << (c - 'a');
+      }
+      else if (c >= '0' && c <= '9') {
+        mask |= 1L << (26 + c - '0');
+      }
+    }
+    return mask;
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2000-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.internal;
+
+import com.intellij.codeInsight.daemon.impl.HighlightingTimings;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.DumbAware;
+
+/**
+ * Dumps time spent by highlighting passes, inspections and annotators since the previous dump and starts collecting anew.
+ */
+public class DumpHighlightingTimingsAction extends AnAction implements DumbAware {
+  private static final Logger LOG = Logger.getInstance("#com.intellij.internal.DumpHighlightingTimingsAction");
+
+  @Override
+  public void actionPerformed(AnActionEvent e) {
+    HighlightingTimings timings = HighlightingTimings.getInstance();
+    StringBuilder builder = new StringBuilder("Highlighting timings:");
+    for (HighlightingTimings.Timing timing : timings.getTimings()) {
+      builder.append("\n").append(timing);
+    }
+    timings.reset();
+    String dump = builder.toString();
+    System.out.println(dump);
+    LOG.info(dump);
+  }
+}
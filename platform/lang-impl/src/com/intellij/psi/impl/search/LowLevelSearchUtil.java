@@ -31,6 +31,7 @@ import com.intellij.psi.search.TextOccurenceProcessor;
 import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.util.text.CharArrayUtil;
 import com.intellij.util.text.StringSearcher;
+import gnu.trove.TIntArrayList;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -172,6 +173,54 @@ public class LowLevelSearchUtil {
     return true;
   }
 
+  /**
+   * Finds all occurrences of the word in the text, so that the PSI may be built only for files which contain it
+   *
+   * @return offsets of the occurrences
+   */
+  @NotNull
+  public static TIntArrayList getTextOccurrences(@NotNull CharSequence text,
+                                                 int startOffset,
+                                                 int endOffset,
+                                                 @NotNull StringSearcher searcher,
+                                                 @Nullable ProgressIndicator progress) {
+    TIntArrayList occurrences = new TIntArrayList();
+    final char[] textArray = CharArrayUtil.fromSequenceWithoutCopying(text);
+    while (startOffset < endOffset) {
+      startOffset = searchWord(text, textArray, startOffset, endOffset, searcher, progress);
+      if (startOffset < 0) break;
+      occurrences.add(startOffset);
+      startOffset++;
+    }
+    return occurrences;
+  }
+
+  /**
+   * Same as {@link #processElementsContainingWordInElement} for the occurrences found by {@link #getTextOccurrences} in the text of
+   * the containing file
+   */
+  //@RequiresReadAction
+  public static boolean processElementsAtOffsets(@NotNull TextOccurenceProcessor processor,
+                                                 @NotNull PsiElement scope,
+                                                 @NotNull StringSearcher searcher,
+                                                 @NotNull TIntArrayList occurrences,
+                                                 final boolean processInjectedPsi,
+                                                 ProgressIndicator progress) {
+    TextRange range = scope.getTextRange();
+    if (range == null) {
+      throw new AssertionError("Element " + scope + " of class " + scope.getClass() + " has null range");
+    }
+
+    int scopeStart = range.getStartOffset();
+    for (int i = 0; i < occurrences.size(); i++) {
+      if (progress != null) progress.checkCanceled();
+      int offset = occurrences.get(i);
+      if (offset < scopeStart || offset >= range.getEndOffset()) continue;
+      if (!processTreeUp(processor, scope, searcher, offset - scopeStart, processInjectedPsi, progress)) return false;
+    }
+    return true;
+  }
+
   public static int searchWord(@NotNull CharSequence text,
                                int startOffset,
                                int endOffset,
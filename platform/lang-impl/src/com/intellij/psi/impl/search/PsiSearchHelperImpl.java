@@ -49,6 +49,7 @@ import com.intellij.util.containers.MultiMap;
 import com.intellij.util.indexing.FileBasedIndex;
 import com.intellij.util.text.CharArrayUtil;
 import com.intellij.util.text.StringSearcher;
+import gnu.trove.TIntArrayList;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -259,10 +260,17 @@ public class PsiSearchHelperImpl implements PsiSearchHelper {
     }
 
     try {
-      return processPsiFileRoots(fileSet, new Processor<PsiElement>() {
+      return processPsiFileRoots(fileSet, new FileTextScanner() {
         @Override
-        public boolean process(PsiElement psiRoot) {
-          return LowLevelSearchUtil.processElementsContainingWordInElement(processor, psiRoot, searcher, true, progress);
+        public Processor<PsiElement> scan(@NotNull VirtualFile file, @NotNull CharSequence text) {
+          final TIntArrayList occurrences = LowLevelSearchUtil.getTextOccurrences(text, 0, text.length(), searcher, progress);
+          if (occurrences.isEmpty()) return null;
+          return new Processor<PsiElement>() {
+            @Override
+            public boolean process(PsiElement psiRoot) {
+              return LowLevelSearchUtil.processElementsAtOffsets(processor, psiRoot, searcher, occurrences, true, progress);
+            }
+          };
         }
       }, progress);
     }
@@ -273,8 +281,19 @@ public class PsiSearchHelperImpl implements PsiSearchHelper {
     }
   }
 
+  /**
+   * Looks for the occurrences in the file text before the PSI of the file is touched
+   */
+  private interface FileTextScanner {
+    /**
+     * @return processor of the PSI roots of the file or {@code null} if the text contains no occurrences
+     */
+    @Nullable
+    Processor<PsiElement> scan(@NotNull VirtualFile file, @NotNull CharSequence text);
+  }
+
   private boolean processPsiFileRoots(@NotNull List<VirtualFile> files,
-                                      @NotNull final Processor<PsiElement> psiRootProcessor,
+                                      @NotNull final FileTextScanner scanner,
                                       final ProgressIndicator progress) {
     myManager.startBatchFilesProcessingMode();
     try {
@@ -293,31 +312,41 @@ public class PsiSearchHelperImpl implements PsiSearchHelper {
             }
           });
           if (file != null && !(file instanceof PsiBinaryFile)) {
-            file.getViewProvider().getContents(); // load contents outside readaction
-            ApplicationManager.getApplication().runReadAction(new Runnable() {
-              @Override
-              public void run() {
-                try {
-                  if (myManager.getProject().isDisposed()) throw new ProcessCanceledException();
-                  List<PsiFile> psiRoots = file.getViewProvider().getAllFiles();
-                  Set<PsiElement> processed = new HashSet<PsiElement>(psiRoots.size() * 2, (float)0.5);
-                  for (PsiElement psiRoot : psiRoots) {
-                    if (progress != null) progress.checkCanceled();
-                    if (!processed.add(psiRoot)) continue;
-                    assert psiRoot != null : "One of the roots of file "+file + " is null. All roots: "+Arrays.asList(psiRoots)+"; Viewprovider: "+file.getViewProvider()+"; Virtual file: "+file.getViewProvider().getVirtualFile();
-                    if (!psiRootProcessor.process(psiRoot)) {
-                      canceled.set(true);
-                      return;
+            final FileViewProvider viewProvider = file.getViewProvider();
+            final long stamp = viewProvider.getModificationStamp();
+            // load and scan contents outside readaction, no PSI is needed for the files without occurrences
+            final Processor<PsiElement> scannedProcessor = scanner.scan(vfile, viewProvider.getContents());
+            if (scannedProcessor != null || stamp != viewProvider.getModificationStamp()) {
+              ApplicationManager.getApplication().runReadAction(new Runnable() {
+                @Override
+                public void run() {
+                  try {
+                    if (myManager.getProject().isDisposed()) throw new ProcessCanceledException();
+                    Processor<PsiElement> psiRootProcessor = scannedProcessor;
+                    if (psiRootProcessor == null || stamp != viewProvider.getModificationStamp()) {
+                      psiRootProcessor = scanner.scan(vfile, viewProvider.getContents());
+                      if (psiRootProcessor == null) return;
                     }
+                    List<PsiFile> psiRoots = viewProvider.getAllFiles();
+                    Set<PsiElement> processed = new HashSet<PsiElement>(psiRoots.size() * 2, (float)0.5);
+                    for (PsiElement psiRoot : psiRoots) {
+                      if (progress != null) progress.checkCanceled();
+                      if (!processed.add(psiRoot)) continue;
+                      assert psiRoot != null : "One of the roots of file "+file + " is null. All roots: "+Arrays.asList(psiRoots)+"; Viewprovider: "+file.getViewProvider()+"; Virtual file: "+file.getViewProvider().getVirtualFile();
+                      if (!psiRootProcessor.process(psiRoot)) {
+                        canceled.set(true);
+                        return;
+                      }
+                    }
+                    myManager.dropResolveCaches();
+                  }
+                  catch (ProcessCanceledException e) {
+                    canceled.set(true);
+                    pceThrown.set(true);
                   }
-                  myManager.dropResolveCaches();
-                }
-                catch (ProcessCanceledException e) {
-                  canceled.set(true);
-                  pceThrown.set(true);
                 }
-              }
-            });
+              });
+            }
           }
           if (progress != null && progress.isRunning()) {
             double fraction = (double)counter.incrementAndGet() / size;
@@ -610,9 +639,15 @@ public class PsiSearchHelperImpl implements PsiSearchHelper {
       }
 
       final Map<RequestWithProcessor, StringSearcher> searchers = new HashMap<RequestWithProcessor, StringSearcher>();
+      final Map<Pair<String, Boolean>, StringSearcher> wordSearchers = new HashMap<Pair<String, Boolean>, StringSearcher>();
       final Set<String> allWords = new TreeSet<String>();
       for (RequestWithProcessor singleRequest : candidateFiles.values()) {
-        searchers.put(singleRequest, new StringSearcher(singleRequest.request.word, singleRequest.request.caseSensitive, true));
+        Pair<String, Boolean> key = Pair.create(singleRequest.request.word, singleRequest.request.caseSensitive);
+        StringSearcher searcher = wordSearchers.get(key);
+        if (searcher == null) {
+          wordSearchers.put(key, searcher = new StringSearcher(key.first, key.second, true));
+        }
+        searchers.put(singleRequest, searcher);
         allWords.add(singleRequest.request.word);
       }
 
@@ -631,20 +666,39 @@ public class PsiSearchHelperImpl implements PsiSearchHelper {
         progress.setText(PsiBundle.message("psi.search.for.word.progress", result.toString()));
       }
 
-      return processPsiFileRoots(new ArrayList<VirtualFile>(candidateFiles.keySet()), new Processor<PsiElement>() {
-                                   @Override
-                                   public boolean process(PsiElement psiRoot) {
-                                     final VirtualFile vfile = psiRoot.getContainingFile().getVirtualFile();
-                                     for (final RequestWithProcessor singleRequest : candidateFiles.get(vfile)) {
-                                       StringSearcher searcher = searchers.get(singleRequest);
-                                       TextOccurenceProcessor adapted = adaptProcessor(singleRequest.request, singleRequest.refProcessor);
-                                       if (!LowLevelSearchUtil.processElementsContainingWordInElement(adapted, psiRoot, searcher, true, progress)) {
-                                         return false;
-                                       }
-                                     }
-                                     return true;
-                                   }
-                                 }, progress);
+      return processPsiFileRoots(new ArrayList<VirtualFile>(candidateFiles.keySet()), new FileTextScanner() {
+        @Override
+        public Processor<PsiElement> scan(@NotNull VirtualFile file, @NotNull CharSequence text) {
+          // requests for the same word share the searcher, so the text is scanned once per word
+          final Map<StringSearcher, TIntArrayList> occurrences = new HashMap<StringSearcher, TIntArrayList>();
+          final List<RequestWithProcessor> requests = new ArrayList<RequestWithProcessor>();
+          for (RequestWithProcessor singleRequest : candidateFiles.get(file)) {
+            StringSearcher searcher = searchers.get(singleRequest);
+            TIntArrayList found = occurrences.get(searcher);
+            if (found == null) {
+              occurrences.put(searcher, found = LowLevelSearchUtil.getTextOccurrences(text, 0, text.length(), searcher, progress));
+            }
+            if (!found.isEmpty()) {
+              requests.add(singleRequest);
+            }
+          }
+          if (requests.isEmpty()) return null;
+
+          return new Processor<PsiElement>() {
+            @Override
+            public boolean process(PsiElement psiRoot) {
+              for (RequestWithProcessor singleRequest : requests) {
+                StringSearcher searcher = searchers.get(singleRequest);
+                TextOccurenceProcessor adapted = adaptProcessor(singleRequest.request, singleRequest.refProcessor);
+                if (!LowLevelSearchUtil.processElementsAtOffsets(adapted, psiRoot, searcher, occurrences.get(searcher), true, progress)) {
+                  return false;
+                }
+              }
+              return true;
+            }
+          };
+        }
+      }, progress);
     }
     finally {
       if (progress != null) {
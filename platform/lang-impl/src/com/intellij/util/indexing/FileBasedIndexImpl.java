@@ -1791,6 +1791,7 @@ public class FileBasedIndexImpl extends FileBasedIndex {
     private void markDirty(@NotNull final VirtualFileEvent event, final boolean contentChange) {
       final VirtualFile eventFile = event.getFile();
       cleanProcessedFlag(eventFile);
+      IndexedLibraryJars.invalidateJarOf(eventFile);
       iterateIndexableFiles(eventFile, new Processor<VirtualFile>() {
         @Override
         public boolean process(@NotNull final VirtualFile file) {
@@ -1846,6 +1847,7 @@ public class FileBasedIndexImpl extends FileBasedIndex {
       }
       else {
         cleanProcessedFlag(file);
+        IndexedLibraryJars.invalidateJarOf(file);
         IndexingStamp.flushCache();
         final List<ID<?, ?>> affectedIndices = new ArrayList<ID<?, ?>>(myIndices.size());
 
@@ -2049,6 +2051,9 @@ public class FileBasedIndexImpl extends FileBasedIndex {
 
   private class UnindexedFilesFinder implements CollectingContentIterator {
     private final List<VirtualFile> myFiles = new ArrayList<VirtualFile>();
+    private final List<VirtualFile> myScannedJars = new ArrayList<VirtualFile>();
+    private final long myIndicesStamp = getIndicesCreationStamp();
+    private final long myJarsEpoch = IndexedLibraryJars.getEpoch();
     private final ProgressIndicator myProgressIndicator;
 
     private UnindexedFilesFinder() {
@@ -2061,6 +2066,15 @@ public class FileBasedIndexImpl extends FileBasedIndex {
       return myFiles;
     }
 
+    /**
+     * Should be called after all the found files have been indexed
+     */
+    private void markScannedJarsIndexed() {
+      for (VirtualFile jarFile : myScannedJars) {
+        IndexedLibraryJars.setIndexed(jarFile, myIndicesStamp, myJarsEpoch);
+      }
+    }
+
     @Override
     public boolean processFile(@NotNull final VirtualFile file) {
       if (!file.isValid()) {
@@ -2134,6 +2148,23 @@ public class FileBasedIndexImpl extends FileBasedIndex {
     }
   }
 
+  /**
+   * @return stamp which changes when some index is rebuilt, registered or unregistered
+   */
+  private long getIndicesCreationStamp() {
+    long stamp = 0;
+    for (ID<?, ?> indexId : myIndices.keySet()) {
+      stamp += 31L * indexId.getUniqueId() + IndexInfrastructure.getIndexCreationStamp(indexId);
+    }
+    return stamp;
+  }
+
+  void unindexedFilesUpdated(@NotNull CollectingContentIterator finder) {
+    if (finder instanceof UnindexedFilesFinder) {
+      ((UnindexedFilesFinder)finder).markScannedJarsIndexed();
+    }
+  }
+
   private boolean shouldUpdateIndex(final VirtualFile file, final ID<?, ?> indexId) {
     return getInputFilter(indexId).acceptInput(file) &&
            (isMock(file) || IndexingStamp.isFileIndexed(file, indexId, IndexInfrastructure.getIndexCreationStamp(indexId)));
@@ -2208,6 +2239,7 @@ public class FileBasedIndexImpl extends FileBasedIndex {
   }
 
   private static void cleanupProcessedFlag() {
+    IndexedLibraryJars.invalidateAll();
     final VirtualFile[] roots = ManagingFS.getInstance().getRoots();
     for (VirtualFile root : roots) {
       cleanProcessedFlag(root);
@@ -2277,7 +2309,7 @@ public class FileBasedIndexImpl extends FileBasedIndex {
             for (VirtualFile[] roots : new VirtualFile[][]{libSources, libClasses}) {
               for (VirtualFile root : roots) {
                 if (visitedRoots.add(root)) {
-                  iterateRecursively(root, processor, indicator);
+                  iterateLibraryRoot(root, processor, indicator);
                 }
               }
             }
@@ -2287,6 +2319,20 @@ public class FileBasedIndexImpl extends FileBasedIndex {
     }
   }
 
+  private static void iterateLibraryRoot(@NotNull VirtualFile root, @NotNull ContentIterator processor, @Nullable ProgressIndicator indicator) {
+    if (processor instanceof UnindexedFilesFinder) {
+      final VirtualFile jarFile = IndexedLibraryJars.getJarFile(root);
+      if (jarFile != null) {
+        final UnindexedFilesFinder finder = (UnindexedFilesFinder)processor;
+        if (IndexedLibraryJars.isIndexed(jarFile, finder.myIndicesStamp, finder.myJarsEpoch)) {
+          return;
+        }
+        finder.myScannedJars.add(jarFile);
+      }
+    }
+    iterateRecursively(root, processor, indicator);
+  }
+
   private static void iterateRecursively(@Nullable final VirtualFile root, @NotNull final ContentIterator processor, @Nullable ProgressIndicator indicator) {
     if (root != null) {
       if (indicator != null) {
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2000-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.util.indexing;
+
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.vfs.JarFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileWithId;
+import com.intellij.openapi.vfs.newvfs.FileAttribute;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+
+/**
+ * Remembers library jars all entries of which have been indexed. Indices are shared by all projects, so such a jar needn't be
+ * scanned again when another project referring to it is opened, as long as neither the jar nor the indices have changed.
+ * <p/>
+ * Marks are also dropped whenever processed flags of the files are reset (e.g. on file type associations change):
+ * all at once by {@link #invalidateAll()} which advances the persistent epoch stored in every mark, or for a single jar
+ * by {@link #invalidateJarOf(VirtualFile)}.
+ */
+class IndexedLibraryJars {
+  private static final Logger LOG = Logger.getInstance("#com.intellij.util.indexing.IndexedLibraryJars");
+  private static final FileAttribute INDEXED_JAR = new FileAttribute("__indexed_jar__", 2, true);
+  private static final long NO_EPOCH = -1;
+  private static long ourEpoch = NO_EPOCH;
+
+  private IndexedLibraryJars() {
+  }
+
+  /**
+   * @return local file of the jar if {@code root} is a root of a jar file system, {@code null} otherwise
+   */
+  @Nullable
+  public static VirtualFile getJarFile(@NotNull VirtualFile root) {
+    if (root.getParent() != null || !(root.getFileSystem() instanceof JarFileSystem)) {
+      return null;
+    }
+    final VirtualFile jarFile = JarFileSystem.getInstance().getVirtualFileForJar(root);
+    return jarFile instanceof VirtualFileWithId && jarFile.isValid() ? jarFile : null;
+  }
+
+  public static synchronized long getEpoch() {
+    if (ourEpoch == NO_EPOCH) {
+      ourEpoch = 0;
+      final File file = getEpochFile();
+      if (file.exists()) {
+        try {
+          final DataInputStream stream = new DataInputStream(new FileInputStream(file));
+          try {
+            ourEpoch = stream.readLong();
+          }
+          finally {
+            stream.close();
+          }
+        }
+        catch (IOException e) {
+          LOG.info(e);
+        }
+      }
+    }
+    return ourEpoch;
+  }
+
+  /**
+   * Makes all the existing marks stale, so every library jar is scanned again
+   */
+  public static synchronized void invalidateAll() {
+    final long epoch = getEpoch() + 1;
+    ourEpoch = epoch;
+    final File file = getEpochFile();
+    try {
+      file.getParentFile().mkdirs();
+      final DataOutputStream stream = new DataOutputStream(new FileOutputStream(file));
+      try {
+        stream.writeLong(epoch);
+      }
+      finally {
+        stream.close();
+      }
+    }
+    catch (IOException e) {
+      LOG.info(e);
+    }
+  }
+
+  /**
+   * Drops the mark of the jar containing {@code file}, if {@code file} is a jar entry
+   */
+  public static void invalidateJarOf(@NotNull VirtualFile file) {
+    if (!(file.getFileSystem() instanceof JarFileSystem)) {
+      return;
+    }
+    final VirtualFile jarFile = JarFileSystem.getInstance().getVirtualFileForJar(file);
+    if (!(jarFile instanceof VirtualFileWithId) || !jarFile.isValid() || INDEXED_JAR.readAttribute(jarFile) == null) {
+      return;
+    }
+    final DataOutputStream stream = INDEXED_JAR.writeAttribute(jarFile);
+    try {
+      try {
+        stream.writeLong(NO_EPOCH);
+      }
+      finally {
+        stream.close();
+      }
+    }
+    catch (IOException e) {
+      LOG.info(e);
+    }
+  }
+
+  private static File getEpochFile() {
+    return new File(PathManager.getIndexRoot(), "indexed_jars.epoch");
+  }
+
+  public static boolean isIndexed(@NotNull VirtualFile jarFile, long indicesStamp, long epoch) {
+    final DataInputStream stream = INDEXED_JAR.readAttribute(jarFile);
+    if (stream == null) {
+      return false;
+    }
+    try {
+      try {
+        return stream.readLong() == epoch &&
+               stream.readLong() == jarFile.getLength() &&
+               stream.readLong() == jarFile.getTimeStamp() &&
+               stream.readLong() == indicesStamp;
+      }
+      finally {
+        stream.close();
+      }
+    }
+    catch (IOException e) {
+      LOG.info(e);
+      return false;
+    }
+  }
+
+  public static void setIndexed(@NotNull VirtualFile jarFile, long indicesStamp, long epoch) {
+    if (!jarFile.isValid()) {
+      return;
+    }
+    final DataOutputStream stream = INDEXED_JAR.writeAttribute(jarFile);
+    try {
+      try {
+        stream.writeLong(epoch);
+        stream.writeLong(jarFile.getLength());
+        stream.writeLong(jarFile.getTimeStamp());
+        stream.writeLong(indicesStamp);
+      }
+      finally {
+        stream.close();
+      }
+    }
+    catch (IOException e) {
+      LOG.info(e);
+    }
+  }
+}
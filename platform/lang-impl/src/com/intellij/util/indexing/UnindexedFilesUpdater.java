@@ -36,6 +36,7 @@ public class UnindexedFilesUpdater implements CacheUpdater {
   private final FileBasedIndexImpl myIndex;
   private final Project myProject;
   private long myStarted;
+  private CollectingContentIterator myFinder;
 
   public UnindexedFilesUpdater(final Project project, FileBasedIndexImpl index) {
     myIndex = index;
@@ -50,6 +51,7 @@ public class UnindexedFilesUpdater implements CacheUpdater {
   @Override
   public VirtualFile[] queryNeededFiles(ProgressIndicator indicator) {
     CollectingContentIterator finder = myIndex.createContentIterator();
+    myFinder = finder;
     long l = System.currentTimeMillis();
     FileBasedIndex.getInstance().iterateIndexableFiles(finder, myProject, indicator);
     LOG.info("Indexable files iterated in " + (System.currentTimeMillis() - l) + " ms");
@@ -67,11 +69,16 @@ public class UnindexedFilesUpdater implements CacheUpdater {
 
   @Override
   public void updatingDone() {
+    if (myFinder != null) {
+      myIndex.unindexedFilesUpdated(myFinder);
+      myFinder = null;
+    }
     LOG.info("Unindexed files update done in " + (System.currentTimeMillis() - myStarted) + " ms");
   }
 
   @Override
   public void canceled() {
+    myFinder = null;
     LOG.info("Unindexed files update canceled");
   }
 }
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2000-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.concurrency;
+
+import com.intellij.openapi.application.Application;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.impl.ProgressManagerImpl;
+import com.intellij.util.Processor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Processes elements of a list by several workers. Instead of splitting the list into fixed chunks beforehand, every worker claims
+ * the next batch of elements, the size of which is a fraction of the elements still unclaimed. So the batches are large while
+ * there is much work left and a few claims suffice for a long list of tiny tasks, and they shrink to single elements at the end
+ * keeping the workers balanced.
+ * <p/>
+ * The calling thread is one of the workers and doesn't wait for the workers which haven't started yet: the elements left to them
+ * are processed by the caller. Hence a nested invocation from a pool thread completes even if all other pool threads are busy.
+ */
+class ConcurrentListProcessor<T> {
+  private static final Logger LOG = Logger.getInstance("#com.intellij.concurrency.ConcurrentListProcessor");
+  private static final int BATCHES_PER_WORKER = 4;
+
+  private final List<T> myThings;
+  @Nullable private final ProgressIndicator myProgress;
+  private final Processor<T> myProcessor;
+  private final AtomicInteger myNextIndex = new AtomicInteger();
+  private final AtomicReference<Throwable> myException = new AtomicReference<Throwable>();
+  private volatile boolean myStopped;
+  private int myRunningWorkers; // guarded by this
+  private boolean myClosed; // guarded by this, workers started after the caller has finished have nothing to do
+
+  ConcurrentListProcessor(@NotNull List<T> things, @Nullable ProgressIndicator progress, @NotNull Processor<T> processor) {
+    myThings = things;
+    myProgress = progress;
+    myProcessor = processor;
+  }
+
+  /**
+   * @return false if processing was stopped by the processor, cancelled, failed or some worker was unable to start read action
+   */
+  boolean process(boolean failFastOnAcquireReadAction) throws ProcessCanceledException {
+    int workers = Math.min(JobSchedulerImpl.CORES_COUNT, myThings.size()) - 1;
+    JobImpl<Void> job = null;
+    if (workers > 0) {
+      job = new JobImpl<Void>(Job.DEFAULT_PRIORITY, failFastOnAcquireReadAction);
+      for (int i = 0; i < workers; i++) {
+        job.addTask(new Runnable() {
+          @Override
+          public void run() {
+            runWorker();
+          }
+        });
+      }
+      Application application = ApplicationManager.getApplication();
+      job.submit(application != null && application.isReadAccessAllowed());
+    }
+
+    processBatches();
+    waitForRunningWorkers();
+
+    Throwable exception = myException.get();
+    if (exception instanceof RuntimeException) {
+      throw (RuntimeException)exception;
+    }
+    if (exception instanceof Error) {
+      throw (Error)exception;
+    }
+    if (exception != null) {
+      LOG.error(exception);
+      return false;
+    }
+    return !myStopped && (job == null || !job.isCanceled());
+  }
+
+  private void runWorker() {
+    synchronized (this) {
+      if (myClosed) return;
+      myRunningWorkers++;
+    }
+    try {
+      processBatches();
+    }
+    finally {
+      synchronized (this) {
+        myRunningWorkers--;
+        notifyAll();
+      }
+    }
+  }
+
+  private void waitForRunningWorkers() {
+    boolean interrupted = false;
+    synchronized (this) {
+      myClosed = true;
+      while (myRunningWorkers > 0) {
+        try {
+          wait();
+        }
+        catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void processBatches() {
+    final int size = myThings.size();
+    try {
+      while (!myStopped) {
+        int batch = Math.max(1, (size - myNextIndex.get()) / (JobSchedulerImpl.CORES_COUNT * BATCHES_PER_WORKER));
+        final int start = myNextIndex.getAndAdd(batch);
+        if (start >= size) return;
+        final int end = Math.min(start + batch, size);
+
+        ((ProgressManagerImpl)ProgressManager.getInstance()).executeProcessUnderProgress(new Runnable() {
+          @Override
+          public void run() {
+            for (int i = start; i < end && !myStopped; i++) {
+              if (myProgress != null && myProgress.isCanceled()) {
+                throw new ProcessCanceledException();
+              }
+              if (!myProcessor.process(myThings.get(i))) {
+                myStopped = true;
+              }
+            }
+          }
+        }, myProgress);
+      }
+    }
+    catch (Throwable e) {
+      myStopped = true;
+      myException.compareAndSet(null, e);
+    }
+  }
+}
@@ -207,6 +207,16 @@ public class JobImpl<T> implements Job<T> {
     submitTasks(tasks, false, true);
   }
 
+  /**
+   * Submits the tasks to the pool without waiting for them to complete
+   */
+  void submit(boolean callerHasReadAccess) {
+    checkCanSchedule();
+    scheduled = true;
+
+    submitTasks(getTasks(), callerHasReadAccess, false);
+  }
+
   public PrioritizedFutureTask[] getTasks() {
     PrioritizedFutureTask[] tasks;
     synchronized (myFutures) {
@@ -16,11 +16,8 @@
 
 package com.intellij.concurrency;
 
-import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.progress.ProcessCanceledException;
 import com.intellij.openapi.progress.ProgressIndicator;
-import com.intellij.openapi.progress.ProgressManager;
-import com.intellij.openapi.progress.impl.ProgressManagerImpl;
 import com.intellij.openapi.progress.util.ProgressWrapper;
 import com.intellij.util.Consumer;
 import com.intellij.util.Processor;
@@ -35,52 +32,9 @@ import java.util.concurrent.Future;
  */
 
 public class JobUtil {
-  private static final Logger LOG = Logger.getInstance("#com.intellij.concurrency.JobUtil");
-
   private JobUtil() {
   }
 
-  private static <T> boolean invokeConcurrentlyForAll(@NotNull final List<T> things,
-                                                      boolean failFastOnAcquireReadAction,
-                                                      @NotNull final Processor<T> thingProcessor) throws ProcessCanceledException {
-    final Job<String> job = new JobImpl<String>(Job.DEFAULT_PRIORITY, failFastOnAcquireReadAction);
-
-    final int chunkSize = Math.max(1, things.size() / JobSchedulerImpl.CORES_COUNT / 20);
-    for (int i = 0; i < things.size(); i += chunkSize) {
-      // this job chunk is i..i+chunkSize-1
-      final int finalI = i;
-      job.addTask(new Runnable() {
-        public void run() {
-          try {
-            for (int k = finalI; k < finalI + chunkSize && k < things.size(); k++) {
-              T thing = things.get(k);
-              if (!thingProcessor.process(thing)) {
-                job.cancel();
-                break;
-              }
-            }
-          }
-          catch (ProcessCanceledException e) {
-            job.cancel();
-            throw e;
-          }
-        }
-      });
-    }
-    try {
-      job.scheduleAndWaitForResults();
-    }
-    catch (RuntimeException e) {
-      job.cancel();
-      throw e;
-    }
-    catch (Throwable throwable) {
-      job.cancel();
-      LOG.error(throwable);
-    }
-    return !job.isCanceled();
-  }
-
   /**
    * Schedules concurrent execution of #thingProcessor over each element of #things and waits for completion
    * With checkCanceled in each thread delegated to our current progress
@@ -109,17 +63,7 @@ public class JobUtil {
 
     // can be already wrapped
     final ProgressWrapper wrapper = progress instanceof ProgressWrapper ? (ProgressWrapper)progress : ProgressWrapper.wrap(progress);
-    return invokeConcurrentlyForAll(things, failFastOnAcquireReadAction, new Processor<T>() {
-      public boolean process(final T t) {
-        final boolean[] result = new boolean[1];
-        ((ProgressManagerImpl)ProgressManager.getInstance()).executeProcessUnderProgress(new Runnable() {
-          public void run() {
-            result[0] = thingProcessor.process(t);
-          }
-        }, wrapper);
-        return result[0];
-      }
-    });
+    return new ConcurrentListProcessor<T>(things, wrapper, thingProcessor).process(failFastOnAcquireReadAction);
   }
 
   public static Job<Void> submitToJobThread(int priority, @NotNull final Runnable action) {
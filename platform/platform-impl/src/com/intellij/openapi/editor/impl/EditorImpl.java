@@ -84,6 +84,7 @@ import com.intellij.util.containers.Convertor;
 import com.intellij.util.containers.HashMap;
 import com.intellij.util.messages.MessageBusConnection;
 import com.intellij.util.text.CharArrayUtil;
+import com.intellij.util.text.CharSequenceBackedByArray;
 import com.intellij.util.ui.ButtonlessScrollBarUI;
 import com.intellij.util.ui.MacUIUtil;
 import com.intellij.util.ui.UIUtil;
@@ -2480,7 +2481,7 @@ public final class EditorImpl extends UserDataHolderBase implements EditorEx, Hi
 
     Point position = new Point(0, visibleLine * lineHeight);
     if (startLine == 0 && myPrefixText != null) {
-      position.x = drawStringWithSoftWraps(g, myPrefixText, 0, myPrefixText.length, position, clip,
+      position.x = drawStringWithSoftWraps(g, myPrefixText, 0, 0, myPrefixText.length, position, clip,
                                            myPrefixAttributes.getEffectColor(), myPrefixAttributes.getEffectType(),
                                            myPrefixAttributes.getFontType(), myPrefixAttributes.getForegroundColor(), logicalPosition);
     }
@@ -2507,7 +2508,19 @@ public final class EditorImpl extends UserDataHolderBase implements EditorEx, Hi
       int fontType = attributes.getFontType();
       g.setColor(currentColor);
 
-      final char[] chars = myDocument.getRawChars();
+      // Large single-byte files are kept by the document as bytes, only the painted lines are copied to char[] for them then.
+      final CharSequence text = myDocument.getCharsSequence();
+      final char[] chars;
+      final int charsShift;
+      if (text instanceof CharSequenceBackedByArray) {
+        chars = myDocument.getRawChars();
+        charsShift = 0;
+      }
+      else {
+        int textEnd = myDocument.getLineEndOffset(myDocument.getLineNumber(Math.min(clipEndOffset, text.length())));
+        chars = CharArrayUtil.fromSequence(text.subSequence(start, textEnd));
+        charsShift = start;
+      }
 
       while (!iterationState.atEnd() && !lIterator.atEnd()) {
         int hEnd = iterationState.getEndOffset();
@@ -2515,7 +2528,7 @@ public final class EditorImpl extends UserDataHolderBase implements EditorEx, Hi
         if (hEnd >= lEnd) {
           FoldRegion collapsedFolderAt = myFoldingModel.getCollapsedRegionAtOffset(start);
           if (collapsedFolderAt == null) {
-            drawStringWithSoftWraps(g, chars, start, lEnd - lIterator.getSeparatorLength(), position, clip, effectColor,
+            drawStringWithSoftWraps(g, chars, charsShift, start, lEnd - lIterator.getSeparatorLength(), position, clip, effectColor,
                                     effectType, fontType, currentColor, logicalPosition);
             position.x = 0;
             if (position.y > clip.y + clip.height) {
@@ -2534,7 +2547,8 @@ public final class EditorImpl extends UserDataHolderBase implements EditorEx, Hi
             SoftWrap softWrap = mySoftWrapModel.getSoftWrap(collapsedFolderAt.getStartOffset());
             if (softWrap != null) {
               position.x = drawStringWithSoftWraps(
-                g, chars, collapsedFolderAt.getStartOffset(), collapsedFolderAt.getStartOffset(), position, clip, effectColor, effectType,
+                g, chars, charsShift, collapsedFolderAt.getStartOffset(), collapsedFolderAt.getStartOffset(), position, clip, effectColor,
+                effectType,
                 fontType, currentColor, logicalPosition
               );
             }
@@ -2548,7 +2562,7 @@ public final class EditorImpl extends UserDataHolderBase implements EditorEx, Hi
 
           }
           else {
-            position.x = drawStringWithSoftWraps(g, chars, start, Math.min(hEnd, lEnd - lIterator.getSeparatorLength()) , position, clip,
+            position.x = drawStringWithSoftWraps(g, chars, charsShift, start, Math.min(hEnd, lEnd - lIterator.getSeparatorLength()) , position, clip,
                                                  effectColor, effectType, fontType, currentColor, logicalPosition);
           }
 
@@ -2789,12 +2803,17 @@ public final class EditorImpl extends UserDataHolderBase implements EditorEx, Hi
                                       Color fontColor,
                                       @NotNull Ref<LogicalPosition> startDrawingLogicalPosition)
   {
-    return drawStringWithSoftWraps(g, text.toCharArray(), 0, text.length(), position, clip, effectColor, effectType,
+    return drawStringWithSoftWraps(g, text.toCharArray(), 0, 0, text.length(), position, clip, effectColor, effectType,
                                    fontType, fontColor, startDrawingLogicalPosition);
   }
 
+  /**
+   * @param textShift  document offset of the first symbol of the given text, i.e. document offset <code>i</code> corresponds to
+   *                   <code>text[i - textShift]</code>
+   */
   private int drawStringWithSoftWraps(@NotNull Graphics g,
                                       final char[] text,
+                                      final int textShift,
                                       final int start,
                                       final int end,
                                       @NotNull Point position,
@@ -2862,7 +2881,7 @@ public final class EditorImpl extends UserDataHolderBase implements EditorEx, Hi
       // Draw token text before the wrap.
       if (softWrap.getStart() > startToUse) {
         position.x = drawString(
-          g, text, startToUse, softWrap.getStart(), position, clip, null, null, fontType, fontColor
+          g, text, startToUse - textShift, softWrap.getStart() - textShift, position, clip, null, null, fontType, fontColor
         );
       }
 
@@ -2906,7 +2925,8 @@ public final class EditorImpl extends UserDataHolderBase implements EditorEx, Hi
       position.x += mySoftWrapModel.paint(g, SoftWrapDrawingType.AFTER_SOFT_WRAP, position.x, position.y, getLineHeight());
       myForceRefreshFont = true;
     }
-    return position.x = drawString(g, text, startToUse, end, position, clip, effectColor, effectType, fontType, fontColor);
+    return position.x = drawString(g, text, startToUse - textShift, end - textShift, position, clip, effectColor, effectType, fontType,
+                                   fontColor);
   }
 
   private int drawString(@NotNull Graphics g,
@@ -620,15 +620,24 @@ public class SoftWrapApplianceManager implements SoftWrapFoldingListener, Docume
     }
   }
 
+  /**
+   * Calculates max soft wrap offset for the visual line that starts at the given offset, i.e. offset of the first line feed
+   * symbol located at the <code>[start; end)</code> interval if any; <code>max(start, end)</code> otherwise.
+   * <p/>
+   * This method is called on every soft wrap, so we don't scan the text up to the end of the current logical line - that would
+   * make soft wraps calculation quadratic for huge single-line documents (e.g. minified json). Line end offset is taken from the
+   * document instead.
+   *
+   * @param start   start offset of the target visual line
+   * @param end     max soft wrap offset of the target visual line
+   * @return        max offset to use for the soft wrap of the visual line that starts at the given offset
+   */
   private int calculateSoftWrapEndOffset(int start, int end) {
-    CharSequence text = myEditor.getDocument().getCharsSequence();
-    for (int i = start; i < end; i++) {
-      char c = text.charAt(i);
-      if (c == '\n') {
-        return i;
-      }
+    if (end <= start) {
+      return start;
     }
-    return Math.max(start, end);
+    Document document = myEditor.getDocument();
+    return Math.min(end, document.getLineEndOffset(document.getLineNumber(start)));
   }
 
   private static int calculateWidthInColumns(char c, int widthInPixels, int spaceWithInPixels) {
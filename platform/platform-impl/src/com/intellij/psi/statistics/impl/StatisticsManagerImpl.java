@@ -17,39 +17,72 @@ package com.intellij.psi.statistics.impl;
 
 import com.intellij.CommonBundle;
 import com.intellij.ide.IdeBundle;
+import com.intellij.openapi.application.Application;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.ui.Messages;
 import com.intellij.psi.statistics.StatisticsInfo;
 import com.intellij.psi.statistics.StatisticsManager;
 import com.intellij.reference.SoftReference;
+import com.intellij.util.Consumer;
 import com.intellij.util.NotNullFunction;
 import com.intellij.util.ScrambledInputStream;
 import com.intellij.util.ScrambledOutputStream;
+import com.intellij.util.concurrency.QueueProcessor;
 import com.intellij.util.containers.ContainerUtil;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.TestOnly;
 
 import java.io.*;
-import java.util.Arrays;
 import java.util.HashSet;
 
 public class StatisticsManagerImpl extends StatisticsManager {
+  private static final Logger LOG = Logger.getInstance("#com.intellij.psi.statistics.impl.StatisticsManagerImpl");
   private static final int UNIT_COUNT = 997;
-  private static final Object LOCK = new Object();
 
   @NonNls private static final String STORE_PATH = PathManager.getSystemPath() + File.separator + "stat";
 
   private final SoftReference[] myUnits = new SoftReference[UNIT_COUNT];
-  private final HashSet<StatisticsUnit> myModifiedUnits = new HashSet<StatisticsUnit>();
+  /**
+   * Every unit is guarded by its own lock, so completion threads querying different contexts don't wait for each other
+   */
+  private final Object[] myUnitLocks = new Object[UNIT_COUNT];
+  /**
+   * Saved units are strongly referenced until their data is written, otherwise a unit collected in the meantime would be
+   * reloaded from a stale or half-written file. Guarded by the unit locks.
+   */
+  private final StatisticsUnit[] myUnitsBeingWritten = new StatisticsUnit[UNIT_COUNT];
+  private final int[] myPendingWrites = new int[UNIT_COUNT];
+  /**
+   * {@code null} means statistics aren't persisted, which is the default in unit test mode
+   */
+  @Nullable private volatile String myStorePath = ApplicationManager.getApplication().isUnitTestMode() ? null : STORE_PATH;
+  private final HashSet<StatisticsUnit> myModifiedUnits = new HashSet<StatisticsUnit>(); // guarded by itself
+  /**
+   * Writes saved units to disk off the dispatch thread, one at a time and in the order of saving
+   */
+  private final QueueProcessor<Runnable> myWriter = new QueueProcessor<Runnable>(new Consumer<Runnable>() {
+    @Override
+    public void consume(Runnable runnable) {
+      runnable.run();
+    }
+  });
+
+  public StatisticsManagerImpl() {
+    for (int i = 0; i < UNIT_COUNT; i++) {
+      myUnitLocks[i] = new Object();
+    }
+  }
 
   public int getUseCount(@NotNull final StatisticsInfo info) {
     if (info == StatisticsInfo.EMPTY) return 0;
 
     String key1 = info.getContext();
     int unitNumber = getUnitNumber(key1);
-    synchronized (LOCK) {
+    synchronized (myUnitLocks[unitNumber]) {
       StatisticsUnit unit = getUnit(unitNumber);
       return unit.getData(key1, info.getValue());
     }
@@ -60,9 +93,12 @@ public class StatisticsManagerImpl extends StatisticsManager {
 
     final String key1 = info.getContext();
     int unitNumber = getUnitNumber(key1);
-    synchronized (LOCK) {
-      StatisticsUnit unit = getUnit(unitNumber);
+    StatisticsUnit unit;
+    synchronized (myUnitLocks[unitNumber]) {
+      unit = getUnit(unitNumber);
       unit.incData(key1, info.getValue());
+    }
+    synchronized (myModifiedUnits) {
       myModifiedUnits.add(unit);
     }
     ApplicationManager.getApplication().assertIsDispatchThread();
@@ -70,8 +106,9 @@ public class StatisticsManagerImpl extends StatisticsManager {
 
   public StatisticsInfo[] getAllValues(final String context) {
     final String[] strings;
-    synchronized (LOCK) {
-      strings = getUnit(getUnitNumber(context)).getKeys2(context);
+    int unitNumber = getUnitNumber(context);
+    synchronized (myUnitLocks[unitNumber]) {
+      strings = getUnit(unitNumber).getKeys2(context);
     }
     return ContainerUtil.map2Array(strings, StatisticsInfo.class, new NotNullFunction<String, StatisticsInfo>() {
       @NotNull
@@ -81,15 +118,54 @@ public class StatisticsManagerImpl extends StatisticsManager {
     });
   }
 
+  /**
+   * Modified units are serialized on the calling thread and written to disk in background, unless the application is being
+   * closed.
+   */
   public void save() {
-    synchronized (LOCK) {
-      if (!ApplicationManager.getApplication().isUnitTestMode()){
-        ApplicationManager.getApplication().assertIsDispatchThread();
-        for (StatisticsUnit unit : myModifiedUnits) {
-          saveUnit(unit.getNumber());
+    final StatisticsUnit[] modifiedUnits;
+    synchronized (myModifiedUnits) {
+      modifiedUnits = myModifiedUnits.toArray(new StatisticsUnit[myModifiedUnits.size()]);
+      myModifiedUnits.clear();
+    }
+    Application application = ApplicationManager.getApplication();
+    final String storePath = myStorePath;
+    if (storePath == null || modifiedUnits.length == 0) return;
+    application.assertIsDispatchThread();
+
+    final int[] numbers = new int[modifiedUnits.length];
+    final byte[][] contents = new byte[modifiedUnits.length][];
+    for (int i = 0; i < modifiedUnits.length; i++) {
+      final int number = modifiedUnits[i].getNumber();
+      numbers[i] = number;
+      synchronized (myUnitLocks[number]) {
+        contents[i] = serializeUnit(modifiedUnits[i]);
+        myUnitsBeingWritten[number] = modifiedUnits[i];
+        myPendingWrites[number]++;
+      }
+    }
+    Runnable write = new Runnable() {
+      @Override
+      public void run() {
+        boolean success = true;
+        for (int i = 0; i < numbers.length; i++) {
+          if (success) {
+            success = saveUnit(storePath, numbers[i], contents[i]);
+          }
+          synchronized (myUnitLocks[numbers[i]]) {
+            if (--myPendingWrites[numbers[i]] == 0) {
+              myUnitsBeingWritten[numbers[i]] = null;
+            }
+          }
         }
       }
-      myModifiedUnits.clear();
+    };
+    if (application.isDisposeInProgress()) {
+      myWriter.waitFor();
+      write.run();
+    }
+    else {
+      myWriter.add(write);
     }
   }
 
@@ -107,10 +183,11 @@ public class StatisticsManagerImpl extends StatisticsManager {
     return unit;
   }
 
-  private static StatisticsUnit loadUnit(int unitNumber) {
+  private StatisticsUnit loadUnit(int unitNumber) {
     StatisticsUnit unit = new StatisticsUnit(unitNumber);
-    if (!ApplicationManager.getApplication().isUnitTestMode()){
-      String path = getPathToUnit(unitNumber);
+    final String storePath = myStorePath;
+    if (storePath != null){
+      String path = getPathToUnit(storePath, unitNumber);
       try{
         InputStream in = new BufferedInputStream(new FileInputStream(path));
         in = new ScrambledInputStream(in);
@@ -129,26 +206,35 @@ public class StatisticsManagerImpl extends StatisticsManager {
     return unit;
   }
 
-  private void saveUnit(int unitNumber){
-    if (!createStoreFolder()) return;
-    StatisticsUnit unit = getUnit(unitNumber);
-    String path = getPathToUnit(unitNumber);
+  private static byte[] serializeUnit(StatisticsUnit unit) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try {
+      OutputStream out = new ScrambledOutputStream(bytes);
+      unit.write(out);
+      out.close();
+    }
+    catch (IOException e) {
+      LOG.error(e); // in-memory stream
+    }
+    return bytes.toByteArray();
+  }
+
+  private static boolean saveUnit(String storePath, int unitNumber, byte[] content){
+    if (!createStoreFolder(storePath)) return false;
+    String path = getPathToUnit(storePath, unitNumber);
     try{
       OutputStream out = new BufferedOutputStream(new FileOutputStream(path));
-      out = new ScrambledOutputStream(out);
       try {
-        unit.write(out);
+        out.write(content);
       }
       finally{
         out.close();
       }
+      return true;
     }
     catch(IOException e){
-      Messages.showMessageDialog(
-        IdeBundle.message("error.saving.statistics", e.getLocalizedMessage()),
-        CommonBundle.getErrorTitle(),
-        Messages.getErrorIcon()
-      );
+      showError(IdeBundle.message("error.saving.statistics", e.getLocalizedMessage()));
+      return false;
     }
   }
 
@@ -156,30 +242,69 @@ public class StatisticsManagerImpl extends StatisticsManager {
     return Math.abs(key1.hashCode()) % UNIT_COUNT;
   }
 
-  private static boolean createStoreFolder(){
-    File homeFile = new File(STORE_PATH);
+  private static boolean createStoreFolder(String storePath){
+    File homeFile = new File(storePath);
     if (!homeFile.exists()){
       if (!homeFile.mkdirs()){
-        Messages.showMessageDialog(
-          IdeBundle.message("error.saving.statistic.failed.to.create.folder", STORE_PATH),
-          CommonBundle.getErrorTitle(),
-          Messages.getErrorIcon()
-        );
+        showError(IdeBundle.message("error.saving.statistic.failed.to.create.folder", storePath));
         return false;
       }
     }
     return true;
   }
 
+  private static void showError(final String message) {
+    ApplicationManager.getApplication().invokeLater(new Runnable() {
+      @Override
+      public void run() {
+        Messages.showMessageDialog(message, CommonBundle.getErrorTitle(), Messages.getErrorIcon());
+      }
+    });
+  }
+
   @SuppressWarnings({"HardCodedStringLiteral"})
-  private static String getPathToUnit(int unitNumber) {
-    return STORE_PATH + File.separator + "unit." + unitNumber;
+  private static String getPathToUnit(String storePath, int unitNumber) {
+    return storePath + File.separator + "unit." + unitNumber;
   }
 
   @TestOnly
   public void clearStatistics() {
-    synchronized (LOCK) {
-      Arrays.fill(myUnits, null);
+    myWriter.waitFor();
+    synchronized (myModifiedUnits) {
+      myModifiedUnits.clear();
+    }
+    for (int i = 0; i < UNIT_COUNT; i++) {
+      synchronized (myUnitLocks[i]) {
+        myUnits[i] = null;
+      }
+    }
+  }
+
+  /**
+   * @param storePath directory to persist statistics to, {@code null} to keep them in memory only
+   */
+  @TestOnly
+  public void setStorePath(@Nullable String storePath) {
+    myWriter.waitFor();
+    myStorePath = storePath;
+  }
+
+  /**
+   * Emulates garbage collection: drops every loaded unit which isn't strongly referenced by the manager
+   */
+  @TestOnly
+  public void dropUnreferencedUnits() {
+    for (int i = 0; i < UNIT_COUNT; i++) {
+      synchronized (myUnitLocks[i]) {
+        if (myUnitsBeingWritten[i] == null) {
+          myUnits[i] = null;
+        }
+      }
     }
   }
-}
\ No newline at end of file
+
+  @TestOnly
+  public void waitForWrites() {
+    myWriter.waitFor();
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2000-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.concurrency;
+
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.testFramework.LightPlatformTestCase;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.intellij.util.Processor;
+import com.intellij.util.ThrowableRunnable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class JobUtilTest extends LightPlatformTestCase {
+  public void testTinyTasksPerformance() {
+    for (int count = 1000; count <= 1000000; count *= 10) {
+      final List<Integer> things = createList(count);
+      final int[] processed = new int[count];
+      PlatformTestUtil.startPerformanceTest("Processing " + count + " tiny tasks is slow", count / 1000 + 50, new ThrowableRunnable() {
+        @Override
+        public void run() {
+          for (int i = 0; i < 10; i++) {
+            assertTrue(JobUtil.invokeConcurrentlyUnderProgress(things, null, false, new Processor<Integer>() {
+              @Override
+              public boolean process(Integer i) {
+                processed[i]++;
+                return true;
+              }
+            }));
+          }
+        }
+      }).cpuBound().usesAllCPUCores().assertTiming();
+      for (int i = 0; i < count; i++) {
+        assertEquals(processed[0], processed[i]);
+      }
+    }
+  }
+
+  public void testNestedInvocationsDoNotDeadlock() {
+    final List<Integer> outer = createList(JobSchedulerImpl.CORES_COUNT * 4);
+    final List<Integer> inner = createList(1000);
+    final AtomicInteger processed = new AtomicInteger();
+    assertTrue(JobUtil.invokeConcurrentlyUnderProgress(outer, null, false, new Processor<Integer>() {
+      @Override
+      public boolean process(Integer integer) {
+        return JobUtil.invokeConcurrentlyUnderProgress(inner, null, false, new Processor<Integer>() {
+          @Override
+          public boolean process(Integer integer) {
+            processed.incrementAndGet();
+            return true;
+          }
+        });
+      }
+    }));
+    assertEquals(outer.size() * inner.size(), processed.get());
+  }
+
+  public void testStopsWhenProcessorReturnsFalse() {
+    final AtomicInteger processed = new AtomicInteger();
+    assertFalse(JobUtil.invokeConcurrentlyUnderProgress(createList(100000), null, false, new Processor<Integer>() {
+      @Override
+      public boolean process(Integer integer) {
+        return processed.incrementAndGet() < 100;
+      }
+    }));
+    assertTrue(String.valueOf(processed.get()), processed.get() < 100000);
+  }
+
+  public void testCancellationIsPropagated() {
+    final EmptyProgressIndicator progress = new EmptyProgressIndicator();
+    final AtomicInteger processed = new AtomicInteger();
+    try {
+      JobUtil.invokeConcurrentlyUnderProgress(createList(100000), progress, false, new Processor<Integer>() {
+        @Override
+        public boolean process(Integer integer) {
+          if (processed.incrementAndGet() == 100) {
+            progress.cancel();
+          }
+          return true;
+        }
+      });
+      fail("Must have been cancelled");
+    }
+    catch (ProcessCanceledException ignored) {
+    }
+    assertTrue(String.valueOf(processed.get()), processed.get() < 100000);
+  }
+
+  private static List<Integer> createList(int count) {
+    List<Integer> list = new ArrayList<Integer>(count);
+    for (int i = 0; i < count; i++) {
+      list.add(i);
+    }
+    return list;
+  }
+}
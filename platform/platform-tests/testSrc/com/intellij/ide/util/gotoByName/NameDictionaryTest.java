@@ -0,0 +1,89 @@
+/*
+ * Copyright 2000-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.ide.util.gotoByName;
+
+import com.intellij.psi.codeStyle.MinusculeMatcher;
+import com.intellij.psi.codeStyle.NameUtil;
+import com.intellij.testFramework.LightPlatformTestCase;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.intellij.util.ThrowableRunnable;
+
+import java.util.*;
+
+public class NameDictionaryTest extends LightPlatformTestCase {
+  private static final String[] WORDS = {"Abstract", "Action", "Base", "Class", "Default", "Editor", "File", "Goto", "Handler", "Impl",
+    "Java", "Lookup", "Manager", "Name", "Provider", "Psi", "Reference", "Search", "Test", "Util", "View", "Xml"};
+
+  public void testMatchesSameNamesAsMatcher() {
+    String[] names = generateNames(30000, "_private", "$Proxy", "1st", "");
+    NameDictionary dictionary = new NameDictionary(names);
+    for (String pattern : new String[]{"", "p", "pr", "prov", "provi", "*pro", "*prov*", "*provi*", "_p", "1", "NaMa", "na ma", "nm",
+      "nmt", "F", "fi", "fiedi", "xz"}) {
+      assertMatches(dictionary, names, pattern);
+    }
+  }
+
+  public void testKeystrokeLatency() {
+    final String[] names = generateNames(1000000);
+    final NameDictionary dictionary = new NameDictionary(names);
+    final String typed = "DefEdiProvImpl";
+    PlatformTestUtil.startPerformanceTest("Name matching on typing is slow", 2000, new ThrowableRunnable() {
+      @Override
+      public void run() {
+        for (int i = 1; i <= typed.length(); i++) {
+          String pattern = typed.substring(0, i);
+          dictionary.collectMatches(pattern, buildMatcher(pattern), null, new ArrayList<String>());
+          dictionary.collectMatches("*" + pattern + "*", buildMatcher("*" + pattern + "*"), null, new ArrayList<String>());
+        }
+      }
+    }).cpuBound().assertTiming();
+    assertMatches(dictionary, names, typed);
+  }
+
+  private static void assertMatches(NameDictionary dictionary, String[] names, String pattern) {
+    MinusculeMatcher matcher = buildMatcher(pattern);
+    List<String> expected = new ArrayList<String>();
+    for (String name : names) {
+      if (matcher.matches(name)) {
+        expected.add(name);
+      }
+    }
+    List<String> actual = new ArrayList<String>();
+    dictionary.collectMatches(pattern, matcher, null, actual);
+    Collections.sort(expected);
+    Collections.sort(actual);
+    assertEquals(pattern, expected, actual);
+  }
+
+  private static MinusculeMatcher buildMatcher(String pattern) {
+    return NameUtil.buildMatcher(pattern, NameUtil.MatchingCaseSensitivity.NONE);
+  }
+
+  private static String[] generateNames(int count, String... extra) {
+    Random random = new Random(42);
+    Set<String> names = new LinkedHashSet<String>(Arrays.asList(extra));
+    while (names.size() < count) {
+      StringBuilder name = new StringBuilder();
+      int words = 1 + random.nextInt(5);
+      for (int i = 0; i < words; i++) {
+        name.append(WORDS[random.nextInt(WORDS.length)]);
+      }
+      name.append(random.nextInt(1000));
+      names.add(name.toString());
+    }
+    return names.toArray(new String[names.size()]);
+  }
+}
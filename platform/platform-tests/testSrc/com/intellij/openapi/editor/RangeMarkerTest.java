@@ -9,12 +9,15 @@ import com.intellij.openapi.command.undo.UndoManager;
 import com.intellij.openapi.editor.event.DocumentAdapter;
 import com.intellij.openapi.editor.event.DocumentEvent;
 import com.intellij.openapi.editor.ex.DocumentEx;
+import com.intellij.openapi.editor.ex.MarkupModelEx;
+import com.intellij.openapi.editor.ex.RangeHighlighterEx;
 import com.intellij.openapi.editor.ex.RangeMarkerEx;
 import com.intellij.openapi.editor.impl.DocumentImpl;
 import com.intellij.openapi.editor.impl.DocumentMarkupModel;
 import com.intellij.openapi.editor.impl.RedBlackTree;
 import com.intellij.openapi.editor.markup.HighlighterTargetArea;
 import com.intellij.openapi.editor.markup.MarkupModel;
+import com.intellij.openapi.editor.markup.RangeHighlighter;
 import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.util.TextRange;
 import com.intellij.openapi.util.Trinity;
@@ -24,13 +27,18 @@ import com.intellij.psi.impl.PsiDocumentManagerImpl;
 import com.intellij.psi.impl.PsiToDocumentSynchronizer;
 import com.intellij.testFramework.LeakHunter;
 import com.intellij.testFramework.LightPlatformTestCase;
+import com.intellij.testFramework.PlatformTestUtil;
 import com.intellij.testFramework.Timings;
+import com.intellij.util.Processor;
+import com.intellij.util.ThrowableRunnable;
 import org.jetbrains.annotations.NonNls;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author mike
@@ -1056,4 +1064,65 @@ public class RangeMarkerTest extends LightPlatformTestCase {
 
     assertTrue(marker.isValid());
   }
+
+  public void testTypingWhileHighlightersAreProcessedInReadAction() throws Exception {
+    final Document document = EditorFactory.getInstance().createDocument(StringUtil.repeat("x", 200000));
+    final MarkupModelEx markupModel = (MarkupModelEx)DocumentMarkupModel.forDocument(document, ourProject, true);
+    for (int i = 0; i < 100000; i++) {
+      markupModel.addRangeHighlighter(2 * i, 2 * i + 1, 0, null, HighlighterTargetArea.EXACT_RANGE);
+    }
+
+    final AtomicBoolean stop = new AtomicBoolean();
+    final AtomicInteger passes = new AtomicInteger();
+    Thread highlighting = new Thread("highlighting") {
+      @Override
+      public void run() {
+        final Random random = new Random(42);
+        while (!stop.get()) {
+          // like a daemon pass: every walk is done in a read action, the write action gets in between them
+          ApplicationManager.getApplication().runReadAction(new Runnable() {
+            @Override
+            public void run() {
+              int start = random.nextInt(document.getTextLength());
+              markupModel.processRangeHighlightersOverlappingWith(start, start + 10000, new Processor<RangeHighlighterEx>() {
+                @Override
+                public boolean process(RangeHighlighterEx highlighter) {
+                  // imitate the work done by a daemon pass for every highlighter
+                  return StringUtil.repeat("x", 100).hashCode() != highlighter.getStartOffset() || !stop.get();
+                }
+              });
+            }
+          });
+          passes.incrementAndGet();
+        }
+      }
+    };
+    highlighting.start();
+    try {
+      PlatformTestUtil.startPerformanceTest("Typing while highlighters are processed in background read actions", 5000, new ThrowableRunnable() {
+        @Override
+        public void run() {
+          for (int i = 0; i < 300; i++) {
+            final int offset = 100000 + i;
+            ApplicationManager.getApplication().runWriteAction(new Runnable() {
+              @Override
+              public void run() {
+                document.insertString(offset, "a");
+              }
+            });
+            // highlighters are updated in the dispatch thread without the write action
+            RangeHighlighter highlighter = markupModel.addRangeHighlighter(offset, offset + 1, 0, null, HighlighterTargetArea.EXACT_RANGE);
+            markupModel.removeHighlighter(highlighter);
+          }
+        }
+      }).assertTiming();
+    }
+    finally {
+      stop.set(true);
+      highlighting.join();
+    }
+    assertTrue(passes.get() > 0);
+    assertEquals(100000, markupModel.getAllHighlighters().length);
+    markupModel.removeAllHighlighters();
+  }
 }
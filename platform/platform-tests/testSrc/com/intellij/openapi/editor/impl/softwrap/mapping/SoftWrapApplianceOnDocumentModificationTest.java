@@ -19,8 +19,11 @@ import com.intellij.codeInsight.folding.CodeFoldingManager;
 import com.intellij.openapi.editor.*;
 import com.intellij.openapi.editor.impl.*;
 import com.intellij.openapi.editor.markup.TextAttributes;
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.codeStyle.CommonCodeStyleSettings;
+import com.intellij.testFramework.PlatformTestUtil;
 import com.intellij.testFramework.TestFileType;
+import com.intellij.util.ThrowableRunnable;
 import gnu.trove.TIntHashSet;
 import gnu.trove.TIntProcedure;
 import org.jetbrains.annotations.NotNull;
@@ -995,6 +998,49 @@ public class SoftWrapApplianceOnDocumentModificationTest extends AbstractEditorP
     assertEquals(position, caretModel.getVisualPosition());
   }
   
+  public void testHugeSingleLineDocumentIsWrappedInLinearTime() throws IOException {
+    StringBuilder text = new StringBuilder();
+    while (text.length() < 500000) {
+      text.append("{\"key\": \"value\", \"id\": ").append(text.length()).append("}, ");
+    }
+    init(80, text.toString());
+    final SoftWrapApplianceManager applianceManager = getSoftWrapModel().getApplianceManager();
+    final int softWrapsNumber = getSoftWrapModel().getRegisteredSoftWraps().size();
+    assertTrue(String.valueOf(softWrapsNumber), softWrapsNumber > 5000);
+    PlatformTestUtil.startPerformanceTest("Soft wraps calculation for a huge line is slow", 2000, new ThrowableRunnable() {
+      @Override
+      public void run() {
+        applianceManager.reset();
+        applianceManager.registerSoftWrapIfNecessary();
+      }
+    }).cpuBound().assertTiming();
+    assertEquals(softWrapsNumber, getSoftWrapModel().getRegisteredSoftWraps().size());
+  }
+
+  public void testOpenAndScrollLargeSoftWrappedDocument() throws IOException {
+    final StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 10000; i++) {
+      text.append(i).append(StringUtil.repeat(" word", 40)).append('\n');
+    }
+    PlatformTestUtil.startPerformanceTest("Opening and scrolling a large soft-wrapped document is slow", 10000, new ThrowableRunnable() {
+      @Override
+      public void run() throws Exception {
+        init(80, text.toString());
+        final int lastVisualLine = myEditor.offsetToVisualPosition(myEditor.getDocument().getTextLength()).line;
+        assertTrue(String.valueOf(lastVisualLine), lastVisualLine > 20000);
+        // every 'page' is what the painting and the caret need after scrolling: its visual lines mapped to document offsets
+        for (int pageStart = 0; pageStart < lastVisualLine; pageStart += 400) {
+          for (int line = pageStart; line < pageStart + 40 && line <= lastVisualLine; line++) {
+            LogicalPosition logical = myEditor.visualToLogicalPosition(new VisualPosition(line, 0));
+            int offset = myEditor.logicalPositionToOffset(logical);
+            assertEquals(line, myEditor.offsetToVisualPosition(offset).line);
+          }
+          myEditor.getCaretModel().moveToVisualPosition(new VisualPosition(pageStart, 0));
+        }
+      }
+    }).cpuBound().assertTiming();
+  }
+
   private void init(final int visibleWidthInColumns, @NotNull String fileText) throws IOException {
     int symbolWidthInPixels = 7;
     init(visibleWidthInColumns * symbolWidthInPixels, fileText, symbolWidthInPixels);
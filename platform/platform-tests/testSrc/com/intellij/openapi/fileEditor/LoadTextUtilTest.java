@@ -1,9 +1,14 @@
 package com.intellij.openapi.fileEditor;
 
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.editor.impl.DocumentImpl;
 import com.intellij.openapi.fileEditor.impl.LoadTextUtil;
 import com.intellij.openapi.util.Comparing;
+import com.intellij.openapi.vfs.CharsetToolkit;
+import com.intellij.openapi.vfs.PersistentFSConstants;
 import com.intellij.testFramework.LightPlatformTestCase;
 import com.intellij.testFramework.LightVirtualFile;
+import com.intellij.util.text.ByteArrayCharSequence;
 
 public class LoadTextUtilTest extends LightPlatformTestCase {
   private static void doTest(String source, String expected, String expectedSeparator) {
@@ -34,4 +39,38 @@ public class LoadTextUtilTest extends LightPlatformTestCase {
   public void testConvertMostCommon() {
     doTest("test\r\ntest\r\ntest\ntest", "test\ntest\ntest\ntest", "\r\n");
   }
+
+  public void testLargeAsciiTextIsNotDecoded() {
+    int maxSize = PersistentFSConstants.getMaxIntellisenseFileSize();
+    PersistentFSConstants.setMaxIntellisenseFileSize(5);
+    try {
+      LightVirtualFile vFile = new LightVirtualFile("test.txt");
+      vFile.setCharset(CharsetToolkit.UTF8_CHARSET);
+      CharSequence text = LoadTextUtil.getTextByBinaryPresentation("test\ntest".getBytes(), vFile);
+      assertInstanceOf(text, ByteArrayCharSequence.class);
+      assertEquals("test\ntest", text.toString());
+      assertEquals("\n", FileDocumentManager.getInstance().getLineSeparator(vFile, null));
+
+      final DocumentImpl document = new DocumentImpl(text);
+      assertEquals(2, document.getLineCount());
+      assertInstanceOf(document.getCharsSequence(), ByteArrayCharSequence.class);
+      assertEquals("test\ntest", new String(document.getRawChars(), 0, document.getTextLength()));
+      assertInstanceOf(document.getCharsSequence(), ByteArrayCharSequence.class);
+      ApplicationManager.getApplication().runWriteAction(new Runnable() {
+        @Override
+        public void run() {
+          document.insertString(4, " text");
+        }
+      });
+      assertEquals("test text\ntest", document.getText());
+      assertEquals("test\ntest", text.toString());
+
+      doTest("test\r\ntest\r\ntest", "test\ntest\ntest", "\r\n");
+      byte[] nonAscii = "t\u00e9sting".getBytes(CharsetToolkit.UTF8_CHARSET);
+      assertFalse(LoadTextUtil.getTextByBinaryPresentation(nonAscii, vFile) instanceof ByteArrayCharSequence);
+    }
+    finally {
+      PersistentFSConstants.setMaxIntellisenseFileSize(maxSize);
+    }
+  }
 }
@@ -4,12 +4,15 @@
  */
 package com.intellij.statistics;
 
+import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.psi.statistics.StatisticsInfo;
 import com.intellij.psi.statistics.StatisticsManager;
 import com.intellij.psi.statistics.impl.StatisticsManagerImpl;
 import com.intellij.testFramework.LightPlatformTestCase;
 import org.jetbrains.annotations.NonNls;
 
+import java.io.File;
+
 /**
  * @author peter
  */
@@ -24,7 +27,9 @@ public class StatisticsManagerTest extends LightPlatformTestCase {
 
   @Override
   protected void tearDown() throws Exception {
-    ((StatisticsManagerImpl)StatisticsManager.getInstance()).clearStatistics();
+    final StatisticsManagerImpl manager = (StatisticsManagerImpl)StatisticsManager.getInstance();
+    manager.setStorePath(null);
+    manager.clearStatistics();
     super.tearDown();
   }
 
@@ -63,4 +68,25 @@ public class StatisticsManagerTest extends LightPlatformTestCase {
     assertTrue(getUseCount("c") < getUseCount("b"));
   }
 
+  public void testUnitCollectedWhileBeingSaved() throws Throwable {
+    final StatisticsManagerImpl manager = (StatisticsManagerImpl)StatisticsManager.getInstance();
+    final File storeDir = FileUtil.createTempDirectory("stat", null);
+    try {
+      manager.setStorePath(storeDir.getPath());
+      incUseCount("b", 3);
+      manager.save();
+      // either the unit is still being written and must not be collected, or it has been written and is reloaded from disk
+      manager.dropUnreferencedUnits();
+      assertEquals(3, getUseCount("b"));
+
+      manager.waitForWrites();
+      manager.dropUnreferencedUnits();
+      assertEquals(3, getUseCount("b"));
+    }
+    finally {
+      manager.setStorePath(null);
+      FileUtil.delete(storeDir);
+    }
+  }
+
 }
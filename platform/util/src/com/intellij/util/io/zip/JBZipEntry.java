@@ -449,6 +449,22 @@ public class JBZipEntry implements Cloneable {
     setData(bytes, time);
   }
 
+  /**
+   * Sets the entry data which is already compressed with the entry's {@link #getMethod() method}, e.g. by a deflater
+   * running in another thread or copied as is from another archive.
+   *
+   * @param content compressed data
+   * @param length  number of bytes of {@code content} to write
+   * @param size    uncompressed size of the data
+   * @param crc     crc-32 of the uncompressed data
+   */
+  public void setCompressedData(byte[] content, int length, long size, long crc) throws IOException {
+    if (method != ZipEntry.STORED && method != ZipEntry.DEFLATED) {
+      throw new ZipException("Unsupported compression method " + method);
+    }
+    myFile.getOutputStream().putNextEntryContent(this, size, crc, content, length);
+  }
+
   public byte[] getData() throws IOException {
     if (size == -1) throw new IOException("no data");
 
@@ -384,20 +384,14 @@ class JBZipOutputStream {
   }
 
   public void putNextEntryBytes(JBZipEntry entry, byte[] bytes) throws IOException {
-    entry.setSize(bytes.length);
-
     crc.reset();
     crc.update(bytes);
-    entry.setCrc(crc.getValue());
+    final long crcValue = crc.getValue();
 
     if (entry.getMethod() == -1) {
       entry.setMethod(method);
     }
 
-    if (entry.getTime() == -1) {
-      entry.setTime(System.currentTimeMillis());
-    }
-
     final byte[] outputBytes;
     final int outputBytesLength;
     if (entry.getMethod() == ZipEntry.DEFLATED) {
@@ -418,8 +412,22 @@ class JBZipOutputStream {
       outputBytes = bytes;
     }
 
-    entry.setCompressedSize(outputBytesLength);
+    putNextEntryContent(entry, bytes.length, crcValue, outputBytes, outputBytesLength);
+  }
+
+  /**
+   * Writes the entry with the data already compressed according to the entry's method.
+   */
+  void putNextEntryContent(JBZipEntry entry, long size, long crc, byte[] content, int length) throws IOException {
+    entry.setSize(size);
+    entry.setCrc(crc);
+
+    if (entry.getTime() == -1) {
+      entry.setTime(System.currentTimeMillis());
+    }
+
+    entry.setCompressedSize(length);
     writeLocalFileHeader(entry);
-    writeOut(outputBytes, 0, outputBytesLength);
+    writeOut(content, 0, length);
   }
 }
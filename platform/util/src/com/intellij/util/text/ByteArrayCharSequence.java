@@ -0,0 +1,67 @@
+/*
+ * Copyright 2000-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.util.text;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Immutable text which symbols are stored one byte per symbol, i.e. every byte is treated as an ISO-8859-1 symbol.
+ * <p/>
+ * Takes half the memory of the corresponding <code>char[]</code>, so it's useful for holding large single-byte texts
+ * (e.g. ASCII logs). The given array must not be modified after the sequence is created.
+ */
+public class ByteArrayCharSequence implements CharSequence {
+  private final byte[] myBytes;
+  private final int myStart;
+  private final int myEnd;
+
+  public ByteArrayCharSequence(@NotNull byte[] bytes) {
+    this(bytes, 0, bytes.length);
+  }
+
+  public ByteArrayCharSequence(@NotNull byte[] bytes, int start, int end) {
+    if (start < 0 || end > bytes.length || start > end) {
+      throw new IndexOutOfBoundsException("bytes.length:" + bytes.length +
+                                          ", start:" + start +
+                                          ", end:" + end);
+    }
+    myBytes = bytes;
+    myStart = start;
+    myEnd = end;
+  }
+
+  @Override
+  public final int length() {
+    return myEnd - myStart;
+  }
+
+  @Override
+  public final char charAt(int index) {
+    return (char)(myBytes[index + myStart] & 0xff);
+  }
+
+  @Override
+  public CharSequence subSequence(int start, int end) {
+    return start == 0 && end == length() ? this : new ByteArrayCharSequence(myBytes, myStart + start, myStart + end);
+  }
+
+  @SuppressWarnings("deprecation")
+  @NotNull
+  public String toString() {
+    // zero high byte gives exactly ISO-8859-1 decoding without charset lookup
+    return new String(myBytes, 0, myStart, length());
+  }
+}
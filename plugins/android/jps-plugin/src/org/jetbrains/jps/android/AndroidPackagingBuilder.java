@@ -216,7 +216,8 @@ public class AndroidPackagingBuilder extends ProjectLevelBuilder {
       assetsStorage = new AndroidFileSetStorage(dataStorageRoot, assetsStorageName);
 
       final String manifestStorageName = releaseBuild ? "manifest_packaging_release" : "manifest_packaging_dev";
-      manifestStorage = new TimestampStorage(AndroidJpsUtil.getStorageFile(dataStorageRoot, manifestStorageName));
+      manifestStorage = new TimestampStorage(AndroidJpsUtil.getStorageFile(dataStorageRoot, manifestStorageName),
+                                             context.getDataManager().getPathIdEnumerator());
 
       final Set<Module> modulesToUpdateState = new HashSet<Module>();
 
@@ -28,8 +28,6 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * <p>Parses the 'git log' output basing on the given number of options.
@@ -71,7 +69,7 @@ class GitLogParser {
   private final boolean mySupportsRawBody;
   private final NameStatus myNameStatusOption;
 
-  /**
+  /*
    * Record format:
    *
    * One git log record.
@@ -79,21 +77,15 @@ class GitLogParser {
    * commit information separated by ITEMS_SEPARATOR.
    * RECORD_END
    * Optionally: changed paths or paths with statuses (if --name-only or --name-status options are given).
+   * Paths are separated by tab, path information ends with a line terminator (possibly except the last path in the output).
    *
    * Example:
    * 2c815939f45fbcfda9583f84b14fe9d393ada790<ITEM_SEPARATOR>sample commit<RECORD_END>
    * D       a.txt
+   *
+   * The output is scanned char by char instead of matching regular expressions over it:
+   * the output of 'git log' for a large repository is huge.
    */
-  private static final Pattern ONE_RECORD = Pattern.compile(RECORD_START + "?(.*)" + RECORD_END + "\n*(.*)", Pattern.DOTALL);
-  private static final String SINGLE_PATH = "([^\t\r\n]+)"; // something not empty, not a tab or newline.
-  private static final String EOL = "\\s*(?:\r|\n|\r\n)";
-  private static final String PATHS =
-    SINGLE_PATH +                    // First path - required.
-    "(?:\t" + SINGLE_PATH + ")?" +   // Second path - optional. Paths are separated by tab.
-    "(?:" + EOL + ")?";                             // Path(s) information ends with a line terminator (possibly except the last path in the output).
-
-  private static Pattern NAME_ONLY = Pattern.compile(PATHS);
-  private static Pattern NAME_STATUS = Pattern.compile("([\\S]+)\t" + PATHS);
 
   // --name-only, --name-status or no flag
   enum NameStatus {
@@ -165,12 +157,19 @@ class GitLogParser {
     // ^b71477e9738168aa67a8d41c414f284255f81e8a#moved out$
     //
     // R100    dir/anew.txt    anew.txt
-    final String[] records = output.split(RECORD_START); // split by START, because END is the end of information, but not the end of the record: file status and path follow.
-    final List<GitLogRecord> res = new ArrayList<GitLogRecord>(records.length);
-    for (String record : records) {
-      if (!record.trim().isEmpty()) {  // record[0] is empty for sure, because we're splitting on RECORD_START. Just to play safe adding the check for all records.
+    // split by START, because END is the end of information, but not the end of the record: file status and path follow.
+    final List<GitLogRecord> res = new ArrayList<GitLogRecord>();
+    int start = 0;
+    while (start <= output.length()) {
+      int end = output.indexOf(RECORD_START, start);
+      if (end < 0) {
+        end = output.length();
+      }
+      String record = output.substring(start, end);
+      if (!record.trim().isEmpty()) {  // the first record is empty for sure, because we're splitting on RECORD_START. Just to play safe adding the check for all records.
         res.add(parseOneRecord(record));
       }
+      start = end + RECORD_START.length();
     }
     return res;
   }
@@ -187,14 +186,12 @@ class GitLogParser {
     if (line.isEmpty()) {
       return null;
     }
-    Matcher matcher = ONE_RECORD.matcher(line);
-    if (!matcher.matches()) {
-      throwGFE("ONE_RECORD didn't match", line);
-    }
-    String commitInfo = matcher.group(1);
-    if (commitInfo == null) {
-      throwGFE("No match for group#1 in", line);
+    int infoStart = line.startsWith(RECORD_START) ? RECORD_START.length() : 0;
+    int infoEnd = line.lastIndexOf(RECORD_END);
+    if (infoEnd < infoStart) {
+      throwGFE("No record end in", line);
     }
+    String commitInfo = line.substring(infoStart, infoEnd);
 
     final Map<GitLogOption, String> res = parseCommitInfo(commitInfo);
 
@@ -203,65 +200,107 @@ class GitLogParser {
     final List<GitLogStatusInfo> statuses = new ArrayList<GitLogStatusInfo>();
 
     if (myNameStatusOption != NameStatus.NONE) {
-      String pathsAndStatuses = matcher.group(2);
-      if (pathsAndStatuses == null) {
-        throwGFE("No match for group#2 in", line);
+      int pos = infoEnd + RECORD_END.length();
+      while (pos < line.length() && line.charAt(pos) == '\n') {
+        pos++;
       }
+      String pathsAndStatuses = line.substring(pos);
+      parsePaths(pathsAndStatuses, myNameStatusOption == NameStatus.STATUS, paths, statuses);
+    }
+    return new GitLogRecord(res, paths, statuses, mySupportsRawBody);
+  }
 
-      if (myNameStatusOption == NameStatus.NAME) {
-        Matcher pathsMatcher = NAME_ONLY.matcher(pathsAndStatuses);
-        while (pathsMatcher.find()) {
-          String path1 = pathsMatcher.group(1);
-          String path2 = pathsMatcher.group(2);
-          assertNotNull(path1, "path", pathsAndStatuses);
-          paths.add(path1);
-          if (path2 != null) { // null is perfectly legal here: second path is given only in case of rename
-            paths.add(path2);
-          }
-        }
+
+  /**
+   * Parses lines of the form "path", "path1&lt;tab&gt;path2" or, if {@code withStatus}, "status&lt;tab&gt;path" and
+   * "status&lt;tab&gt;path1&lt;tab&gt;path2". Empty lines are skipped.
+   */
+  private static void parsePaths(@NotNull String pathsAndStatuses, boolean withStatus,
+                                 @NotNull List<String> paths, @NotNull List<GitLogStatusInfo> statuses) {
+    int length = pathsAndStatuses.length();
+    int pos = 0;
+    while (pos < length) {
+      char c = pathsAndStatuses.charAt(pos);
+      if (c == '\t' || c == '\r' || c == '\n') {
+        pos++;
+        continue;
       }
-      else {
-        Matcher nameStatusMatcher = NAME_STATUS.matcher(pathsAndStatuses);
-        while (nameStatusMatcher.find()) {
-          String status = nameStatusMatcher.group(1);
-          String path1 = nameStatusMatcher.group(2);
-          String path2 = nameStatusMatcher.group(3);
-          assertNotNull(status, "status", pathsAndStatuses);
-          assertNotNull(path1, "path1", pathsAndStatuses);
-          paths.add(path1);
-          if (path2 != null) {
-            paths.add(path2);
-          }
-          statuses.add(new GitLogStatusInfo(GitChangeType.fromString(status), path1, path2));
+
+      String status = null;
+      if (withStatus) {
+        int statusEnd = pos;
+        while (statusEnd < length && !Character.isWhitespace(pathsAndStatuses.charAt(statusEnd))) {
+          statusEnd++;
         }
+        if (statusEnd == length || pathsAndStatuses.charAt(statusEnd) != '\t' || !isPathStart(pathsAndStatuses, statusEnd + 1)) {
+          pos = skipLine(pathsAndStatuses, statusEnd);
+          continue;
+        }
+        status = pathsAndStatuses.substring(pos, statusEnd);
+        pos = statusEnd + 1;
+      }
+
+      int path1End = pathEnd(pathsAndStatuses, pos);
+      String path1 = pathsAndStatuses.substring(pos, path1End);
+      String path2 = null; // null is perfectly legal here: second path is given only in case of rename
+      pos = path1End;
+      if (isPathStart(pathsAndStatuses, pos + 1) && pathsAndStatuses.charAt(pos) == '\t') {
+        int path2End = pathEnd(pathsAndStatuses, pos + 1);
+        path2 = pathsAndStatuses.substring(pos + 1, path2End);
+        pos = path2End;
+      }
+
+      paths.add(path1);
+      if (path2 != null) {
+        paths.add(path2);
+      }
+      if (status != null) {
+        statuses.add(new GitLogStatusInfo(GitChangeType.fromString(status), path1, path2));
       }
     }
-    return new GitLogRecord(res, paths, statuses, mySupportsRawBody);
   }
 
+  private static boolean isPathStart(@NotNull String s, int pos) {
+    if (pos >= s.length()) return false;
+    char c = s.charAt(pos);
+    return c != '\t' && c != '\r' && c != '\n';
+  }
+
+  private static int pathEnd(@NotNull String s, int pos) {
+    while (isPathStart(s, pos)) {
+      pos++;
+    }
+    return pos;
+  }
+
+  private static int skipLine(@NotNull String s, int pos) {
+    while (pos < s.length() && s.charAt(pos) != '\r' && s.charAt(pos) != '\n') {
+      pos++;
+    }
+    return pos;
+  }
 
   @NotNull
   private Map<GitLogOption, String> parseCommitInfo(@NotNull String commitInfo) {
     // parsing revision information
     // we rely on the order of options
-    final String[] values = commitInfo.split(ITEMS_SEPARATOR);
-    final Map<GitLogOption, String> res = new HashMap<GitLogOption, String>(values.length);
-    int i = 0;
-    for (; i < values.length && i < myOptions.length; i++) {  // fill valid values
-      res.put(myOptions[i], values[i]);
-    }
-    for (; i < myOptions.length; i++) {  // options which were not returned are set to blank string, extra options are ignored.
-      res.put(myOptions[i], "");
+    final Map<GitLogOption, String> res = new HashMap<GitLogOption, String>(myOptions.length);
+    int start = 0;
+    for (GitLogOption option : myOptions) {
+      if (start > commitInfo.length()) {  // options which were not returned are set to blank string
+        res.put(option, "");
+        continue;
+      }
+      int end = commitInfo.indexOf(ITEMS_SEPARATOR, start);
+      if (end < 0) {
+        end = commitInfo.length();
+      }
+      res.put(option, commitInfo.substring(start, end)); // extra values are ignored
+      start = end + ITEMS_SEPARATOR.length();
     }
     return res;
   }
 
-  private static void assertNotNull(String value, String valueName, String line) {
-    if (value == null) {
-      throwGFE("Unexpectedly null " + valueName + " in ", line);
-    }
-  }
-
   private static void throwGFE(String message, String line) {
     throw new GitFormatException(message + " [" + StringUtil.escapeStringCharacters(line) + "]");
   }
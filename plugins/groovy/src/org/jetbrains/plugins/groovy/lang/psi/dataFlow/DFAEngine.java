@@ -33,6 +33,7 @@ import java.util.*;
  */
 public class DFAEngine<E> {
   private static final long ourTimeLimit = DataFlowRunner.ourTimeLimit;
+  private static final int TIME_CHECK_INTERVAL = 64; // thread user time is expensive to query on every step
 
   private final Instruction[] myFlow;
 
@@ -88,6 +89,7 @@ public class DFAEngine<E> {
     }
 
     boolean[] visited = new boolean[myFlow.length];
+    int steps = 0;
 
     final boolean forward = myDfa.isForward();
     int[] order = ControlFlowBuilderUtil.postorder(myFlow); //todo for backward?
@@ -95,13 +97,13 @@ public class DFAEngine<E> {
       Instruction instr = myFlow[order[i]];
 
       if (!visited[instr.num()]) {
-        Queue<Instruction> workList = new LinkedList<Instruction>();
+        Queue<Instruction> workList = new ArrayDeque<Instruction>();
 
         workList.add(instr);
         visited[instr.num()] = true;
 
         while (!workList.isEmpty()) {
-          if (timeout && tm.getCurrentThreadUserTime() - startTime > ourTimeLimit) return null;
+          if (timeout && ++steps % TIME_CHECK_INTERVAL == 0 && tm.getCurrentThreadUserTime() - startTime > ourTimeLimit) return null;
 
           ProgressManager.checkCanceled();
           final Instruction curr = workList.remove();
@@ -129,7 +131,7 @@ public class DFAEngine<E> {
 
   private E join(Instruction instruction, ArrayList<E> info, CallEnvironment env) {
     final Iterable<? extends Instruction> prev = myDfa.isForward() ? instruction.predecessors(env) : instruction.successors(env);
-    ArrayList<E> prevInfos = new ArrayList<E>();
+    ArrayList<E> prevInfos = new ArrayList<E>(2);
     for (Instruction i : prev) {
       prevInfos.add(info.get(i.num()));
     }
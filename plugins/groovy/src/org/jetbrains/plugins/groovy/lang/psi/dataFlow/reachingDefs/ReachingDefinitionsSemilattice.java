@@ -27,7 +27,7 @@ public class ReachingDefinitionsSemilattice implements Semilattice<TIntObjectHas
   public TIntObjectHashMap<TIntHashSet> join(ArrayList<TIntObjectHashMap<TIntHashSet>> ins) {
     if (ins.isEmpty()) return new TIntObjectHashMap<TIntHashSet>();
 
-    TIntObjectHashMap<TIntHashSet> result = new TIntObjectHashMap<TIntHashSet>();
+    TIntObjectHashMap<TIntHashSet> result = new TIntObjectHashMap<TIntHashSet>(ins.get(0).size());
     for (TIntObjectHashMap<TIntHashSet> map : ins) {
       merge(result, map);
     }
@@ -35,15 +35,20 @@ public class ReachingDefinitionsSemilattice implements Semilattice<TIntObjectHas
     return result;
   }
 
-  private void merge(final TIntObjectHashMap<TIntHashSet> result, TIntObjectHashMap<TIntHashSet> map2) {
+  private static void merge(final TIntObjectHashMap<TIntHashSet> result, TIntObjectHashMap<TIntHashSet> map2) {
     map2.forEachEntry(new TIntObjectProcedure<TIntHashSet>() {
       public boolean execute(int num, TIntHashSet defs) {
-        TIntHashSet defs2 = result.get(num);
+        final TIntHashSet defs2 = result.get(num);
         if (defs2 == null) {
-          defs2 = new TIntHashSet(defs.toArray());
-          result.put(num, defs2);
+          result.put(num, (TIntHashSet)defs.clone());
         } else {
-          defs2.addAll(defs.toArray());
+          // add without copying the definitions to an intermediate array
+          defs.forEach(new TIntProcedure() {
+            public boolean execute(int def) {
+              defs2.add(def);
+              return true;
+            }
+          });
         }
 
         return true;
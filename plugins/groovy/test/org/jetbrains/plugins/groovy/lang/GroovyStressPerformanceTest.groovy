@@ -137,4 +137,10 @@ class GroovyStressPerformanceTest extends LightCodeInsightFixtureTestCase {
   public void testManyAnnotatedScriptVariables() {
     IdeaTestUtil.startPerformanceTest("slow", 10000, configureAndHighlight((0..100).collect { "@Anno String i$it = null" }.join("\n"))).cpuBound().usesAllCPUCores().assertTiming()
   }
+
+  public void testManyReassignedVariablesInLongMethod() {
+    String body = (0..<300).collect { "def a$it = $it\nif (a$it > 0) { a$it = 'str' } else { a$it = [] }\n" }.join("")
+    body += (0..<300).collect { "a${it}.size()" }.join("\n")
+    IdeaTestUtil.startPerformanceTest("slow", 10000, configureAndHighlight("def foo() {\n$body\n}")).cpuBound().usesAllCPUCores().assertTiming()
+  }
 }
@@ -16,6 +16,8 @@
 package org.jetbrains.idea.maven.indices;
 
 import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.util.containers.ConcurrentHashMap;
+import com.intellij.util.containers.ConcurrentSoftValueHashMap;
 import com.intellij.util.io.*;
 import gnu.trove.THashMap;
 import gnu.trove.THashSet;
@@ -68,7 +70,10 @@ public class MavenIndex {
   private Long myUpdateTimestamp;
 
   private String myDataDirName;
-  private IndexData myData;
+  /**
+   * Replaced as a whole after an update. Lookups answered from its caches don't take the index lock.
+   */
+  private volatile IndexData myData;
 
   private String myFailureMessage;
 
@@ -460,6 +465,8 @@ public class MavenIndex {
 
         addToCache(myData.groupToArtifactMap, groupId, artifactId);
         addToCache(myData.groupWithArtifactToVersionMap, groupWithArtifact, version);
+        myData.artifactIdsCache.remove(groupId);
+        myData.versionsCache.remove(groupWithArtifact);
         myData.flush();
 
         return null;
@@ -482,13 +489,18 @@ public class MavenIndex {
     }, Collections.<String>emptySet());
   }
 
-  public synchronized Set<String> getArtifactIds(final String groupId) {
-    return doIndexTask(new IndexTask<Set<String>>() {
-      public Set<String> doTask() throws Exception {
-        Set<String> result = myData.groupToArtifactMap.get(groupId);
-        return result == null ? Collections.<String>emptySet() : result;
-      }
-    }, Collections.<String>emptySet());
+  public Set<String> getArtifactIds(final String groupId) {
+    IndexData data = myData;
+    Set<String> cached = data == null ? null : data.artifactIdsCache.get(groupId);
+    if (cached != null) return cached;
+
+    synchronized (this) {
+      return doIndexTask(new IndexTask<Set<String>>() {
+        public Set<String> doTask() throws Exception {
+          return cacheValues(myData.artifactIdsCache, groupId, myData.groupToArtifactMap.get(groupId));
+        }
+      }, Collections.<String>emptySet());
+    }
   }
 
   @TestOnly
@@ -502,38 +514,63 @@ public class MavenIndex {
     }, Collections.<String>emptySet());
   }
 
-  public synchronized Set<String> getVersions(final String groupId, final String artifactId) {
-    return doIndexTask(new IndexTask<Set<String>>() {
-      public Set<String> doTask() throws Exception {
-        Set<String> result = myData.groupWithArtifactToVersionMap.get(groupId + ":" + artifactId);
-        return result == null ? Collections.<String>emptySet() : result;
-      }
-    }, Collections.<String>emptySet());
+  public Set<String> getVersions(final String groupId, final String artifactId) {
+    final String groupWithArtifact = groupId + ":" + artifactId;
+    IndexData data = myData;
+    Set<String> cached = data == null ? null : data.versionsCache.get(groupWithArtifact);
+    if (cached != null) return cached;
+
+    synchronized (this) {
+      return doIndexTask(new IndexTask<Set<String>>() {
+        public Set<String> doTask() throws Exception {
+          return cacheValues(myData.versionsCache, groupWithArtifact, myData.groupWithArtifactToVersionMap.get(groupWithArtifact));
+        }
+      }, Collections.<String>emptySet());
+    }
   }
 
-  public synchronized boolean hasGroupId(String groupId) {
-    return hasValue(myData.groupToArtifactMap, myData.hasGroupCache, groupId);
+  private static Set<String> cacheValues(Map<String, Set<String>> cache, String key, @Nullable Set<String> values) {
+    Set<String> result = values == null ? Collections.<String>emptySet() : Collections.unmodifiableSet(values);
+    cache.put(key, result);
+    return result;
   }
 
-  public synchronized boolean hasArtifactId(String groupId, String artifactId) {
-    return hasValue(myData.groupWithArtifactToVersionMap, myData.hasArtifactCache, groupId + ":" + artifactId);
+  public boolean hasGroupId(String groupId) {
+    Boolean cached = myData.hasGroupCache.get(groupId);
+    if (cached != null) return cached;
+
+    synchronized (this) {
+      return hasValue(myData.groupToArtifactMap, myData.hasGroupCache, groupId);
+    }
+  }
+
+  public boolean hasArtifactId(String groupId, String artifactId) {
+    String groupWithArtifact = groupId + ":" + artifactId;
+    Boolean cached = myData.hasArtifactCache.get(groupWithArtifact);
+    if (cached != null) return cached;
+
+    synchronized (this) {
+      return hasValue(myData.groupWithArtifactToVersionMap, myData.hasArtifactCache, groupWithArtifact);
+    }
   }
 
-  public synchronized boolean hasVersion(String groupId, String artifactId, final String version) {
+  public boolean hasVersion(String groupId, String artifactId, final String version) {
     final String groupWithArtifactWithVersion = groupId + ":" + artifactId + ':' + version;
 
     Boolean res = myData.hasVersionCache.get(groupWithArtifactWithVersion);
     if (res == null) {
-      res = doIndexTask(new IndexTask<Boolean>() {
-        @Override
-        public Boolean doTask() throws Exception {
-          String groupWithVersion = groupWithArtifactWithVersion.substring(0, groupWithArtifactWithVersion.length() - version.length() - 1);
-          Set<String> set = myData.groupWithArtifactToVersionMap.get(groupWithVersion);
-          return set != null && set.contains(version);
-        }
-      }, false);
+      synchronized (this) {
+        res = doIndexTask(new IndexTask<Boolean>() {
+          @Override
+          public Boolean doTask() throws Exception {
+            String groupWithVersion = groupWithArtifactWithVersion.substring(0, groupWithArtifactWithVersion.length() - version.length() - 1);
+            Set<String> set = myData.groupWithArtifactToVersionMap.get(groupWithVersion);
+            return set != null && set.contains(version);
+          }
+        }, false);
 
-      myData.hasVersionCache.put(groupWithArtifactWithVersion, res);
+        myData.hasVersionCache.put(groupWithArtifactWithVersion, res);
+      }
     }
 
     return res;
@@ -600,9 +637,11 @@ public class MavenIndex {
     final PersistentHashMap<String, Set<String>> groupToArtifactMap;
     final PersistentHashMap<String, Set<String>> groupWithArtifactToVersionMap;
 
-    final Map<String, Boolean> hasGroupCache = new THashMap<String, Boolean>();
-    final Map<String, Boolean> hasArtifactCache = new THashMap<String, Boolean>();
-    final Map<String, Boolean> hasVersionCache = new THashMap<String, Boolean>();
+    final Map<String, Boolean> hasGroupCache = new ConcurrentHashMap<String, Boolean>();
+    final Map<String, Boolean> hasArtifactCache = new ConcurrentHashMap<String, Boolean>();
+    final Map<String, Boolean> hasVersionCache = new ConcurrentHashMap<String, Boolean>();
+    final Map<String, Set<String>> artifactIdsCache = new ConcurrentSoftValueHashMap<String, Set<String>>();
+    final Map<String, Set<String>> versionsCache = new ConcurrentSoftValueHashMap<String, Set<String>>();
 
     private final int indexId;
 
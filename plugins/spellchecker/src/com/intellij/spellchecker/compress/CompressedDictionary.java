@@ -92,23 +92,38 @@ public final class CompressedDictionary implements Dictionary {
     if (index == -1) {
       return result;
     }
-    int i = 0;
-    for (byte[] data : words) {
+    byte letter = (byte)index;
+    for (int i = 0; i < words.length; i++) {
       int length = lengths[i];
-      for (int x = 0; x < data.length; x += length) {
-        byte[] toTest = new byte[length];
-        System.arraycopy(data, x, toTest, 0, length);
-        if (toTest[1] != index || toTest[0] > maxLength || toTest[0] < minLength) {
-          continue;
-        }
-        UnitBitSet set = UnitBitSet.create(toTest);
+      // all the words of a row have the same length and are sorted, so the words starting with the letter are adjacent
+      int wordLength = length - 2;
+      if (wordLength < minLength || wordLength > maxLength) {
+        continue;
+      }
+      byte[] data = words[i];
+      for (int x = firstWithLetter(data, length, letter) * length; x < data.length && data[x + 1] == letter; x += length) {
+        UnitBitSet set = UnitBitSet.create(data, x, length);
         result.add(encoder.decode(set));
       }
-      i++;
     }
     return result;
   }
 
+  private static int firstWithLetter(byte[] data, int length, byte letter) {
+    int low = 0;
+    int high = data.length / length;
+    while (low < high) {
+      int mid = low + high >>> 1;
+      if (data[mid * length + 1] < letter) {
+        low = mid + 1;
+      }
+      else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
   public List<String> getWords(char first) {
     return getWords(first, 0, Integer.MAX_VALUE);
   }
@@ -217,13 +232,11 @@ public final class CompressedDictionary implements Dictionary {
     int high = toIndex - 1;
     while (low <= high) {
       int mid = low + high >>> 1;
-      byte[] toTest = new byte[unitLength];
-      System.arraycopy(data, mid * unitLength, toTest, 0, unitLength);
-      int check = compareArrays(toTest, goal);
-      if (check == -1) {
+      int check = compareUnit(data, mid * unitLength, goal);
+      if (check < 0) {
         low = mid + 1;
       }
-      else if (check == 1) {
+      else if (check > 0) {
         high = mid - 1;
       }
       else {
@@ -233,5 +246,13 @@ public final class CompressedDictionary implements Dictionary {
     return -(low + 1);  // key not found.
   }
 
-
+  private static int compareUnit(byte[] data, int offset, byte[] goal) {
+    for (int i = 0; i < goal.length; i++) {
+      byte b = data[offset + i];
+      if (b != goal[i]) {
+        return b < goal[i] ? -1 : 1;
+      }
+    }
+    return 0;
+  }
 }
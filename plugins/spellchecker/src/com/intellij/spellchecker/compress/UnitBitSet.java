@@ -45,8 +45,12 @@ public class UnitBitSet {
   }
 
   public static UnitBitSet create(byte[] value) {
+    return create(value, 0, value.length);
+  }
+
+  public static UnitBitSet create(byte[] value, int offset, int length) {
     final UnitBitSet r = new UnitBitSet();
-    System.arraycopy(value, 0, r.b, 0, value.length);
+    System.arraycopy(value, offset, r.b, 0, length);
     return r;
   }
 
@@ -50,7 +50,7 @@ public class BaseSpellChecker implements SpellCheckerEngine {
 
   private final Set<EditableDictionary> dictionaries = new THashSet<EditableDictionary>();
   private final List<Dictionary> bundledDictionaries = new CopyOnWriteArrayList<Dictionary>();
-  private final Metrics metrics = new LevenshteinDistance();
+  private final LevenshteinDistance metrics = new LevenshteinDistance();
 
   private AtomicBoolean myLoadingDictionaries = new AtomicBoolean(false); 
   private List<Pair<Loader, Consumer<Dictionary>>> myDictionariesToLoad = new CopyOnWriteArrayList<Pair<Loader, Consumer<Dictionary>>>();
@@ -290,13 +290,31 @@ public class BaseSpellChecker implements SpellCheckerEngine {
       return Collections.emptyList();
     }
     final List<Suggestion> suggestions = new ArrayList<Suggestion>();
+    List<String> result = new ArrayList<String>();
+    if (threshold <= 0) {
+      return result;
+    }
     List<String> rawSuggestions = restore(transformed.charAt(0), 0, Integer.MAX_VALUE, bundledDictionaries);
     rawSuggestions.addAll(restore(word.charAt(0), 0, Integer.MAX_VALUE, dictionaries));
+    // the smallest distances seen so far: a word farther than the threshold-th of them can't get into the result,
+    // so its distance isn't computed completely
+    int[] closest = new int[threshold];
+    Arrays.fill(closest, Integer.MAX_VALUE);
     for (String rawSuggestion : rawSuggestions) {
-      final int distance = metrics.calculateMetrics(transformed, rawSuggestion);
+      int limit = closest[threshold - 1];
+      final int distance = metrics.calculateMetrics(transformed, rawSuggestion, limit);
+      if (distance > limit) {
+        continue;
+      }
       suggestions.add(new Suggestion(rawSuggestion, distance));
+      int i = threshold - 1;
+      if (distance < closest[i]) {
+        for (; i > 0 && closest[i - 1] > distance; i--) {
+          closest[i] = closest[i - 1];
+        }
+        closest[i] = distance;
+      }
     }
-    List<String> result = new ArrayList<String>();
     if (suggestions.isEmpty()) {
       return result;
     }
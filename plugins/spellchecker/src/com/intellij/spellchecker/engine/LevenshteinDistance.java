@@ -22,22 +22,40 @@ public class LevenshteinDistance implements Metrics {
   }
 
   public int calculateMetrics(CharSequence str1, CharSequence str2) {
-    int[][] distance = new int[str1.length() + 1][str2.length() + 1];
+    return calculateMetrics(str1, str2, Integer.MAX_VALUE);
+  }
 
-    for (int i = 0; i <= str1.length(); i++) {
-      distance[i][0] = i;
+  /**
+   * @return the distance or <code>limit + 1</code> if it's greater than <code>limit</code>
+   */
+  public int calculateMetrics(CharSequence str1, CharSequence str2, int limit) {
+    int length1 = str1.length();
+    int length2 = str2.length();
+    if (Math.abs(length1 - length2) > limit) {
+      return limit + 1;
     }
-    for (int j = 0; j <= str2.length(); j++) {
-      distance[0][j] = j;
+    int[] previous = new int[length2 + 1];
+    int[] current = new int[length2 + 1];
+    for (int j = 0; j <= length2; j++) {
+      previous[j] = j;
     }
 
-    for (int i = 1; i <= str1.length(); i++) {
-      for (int j = 1; j <= str2.length(); j++) {
-        distance[i][j] = minimum(distance[i - 1][j] + 1, distance[i][j - 1] + 1,
-                                 distance[i - 1][j - 1] + ((str1.charAt(i - 1) == str2.charAt(j - 1)) ? 0 : 1));
+    for (int i = 1; i <= length1; i++) {
+      current[0] = i;
+      int rowMinimum = i;
+      char c = str1.charAt(i - 1);
+      for (int j = 1; j <= length2; j++) {
+        current[j] = minimum(previous[j] + 1, current[j - 1] + 1, previous[j - 1] + (c == str2.charAt(j - 1) ? 0 : 1));
+        rowMinimum = Math.min(rowMinimum, current[j]);
+      }
+      if (rowMinimum > limit) {
+        return limit + 1;
       }
+      int[] t = previous;
+      previous = current;
+      current = t;
     }
 
-    return distance[str1.length()][str2.length()];
+    return previous[length2] > limit ? limit + 1 : previous[length2];
   }
 }
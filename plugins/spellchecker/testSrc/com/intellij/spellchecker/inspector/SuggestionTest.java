@@ -15,9 +15,19 @@
  */
 package com.intellij.spellchecker.inspector;
 
+import com.intellij.spellchecker.DefaultBundledDictionariesProvider;
 import com.intellij.spellchecker.SpellCheckerManager;
+import com.intellij.spellchecker.StreamLoader;
+import com.intellij.spellchecker.compress.CompressedDictionary;
+import com.intellij.spellchecker.engine.BaseSpellChecker;
+import com.intellij.spellchecker.engine.LevenshteinDistance;
+import com.intellij.spellchecker.engine.Suggestion;
+import com.intellij.testFramework.PlatformTestUtil;
 import com.intellij.testFramework.fixtures.CodeInsightFixtureTestCase;
+import com.intellij.util.ThrowableRunnable;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 
@@ -50,4 +60,41 @@ public class SuggestionTest extends CodeInsightFixtureTestCase {
     assertEquals("TestUpgrade",result.get(0));
   }
 
+  public void testSameSuggestionsAsWithUnboundedDistance() {
+    final BaseSpellChecker checker = new BaseSpellChecker(getProject());
+    checker.loadDictionary(new StreamLoader(DefaultBundledDictionariesProvider.class.getResourceAsStream("english.dic"), "english.dic"));
+    final CompressedDictionary dictionary =
+      CompressedDictionary.create(new StreamLoader(DefaultBundledDictionariesProvider.class.getResourceAsStream("english.dic"), "english.dic"),
+                                  checker.getTransformation());
+    final LevenshteinDistance distance = new LevenshteinDistance();
+    for (String typo : new String[]{"upgade", "dictionry", "perfomance", "seperate", "recieve", "tset", "xyzzy", "qwertyuiop"}) {
+      final List<Suggestion> suggestions = new ArrayList<Suggestion>();
+      for (String word : dictionary.getWords(typo.charAt(0))) {
+        suggestions.add(new Suggestion(word, distance.calculateMetrics(typo, word)));
+      }
+      Collections.sort(suggestions);
+      for (int threshold = 1; threshold <= 5; threshold += 2) {
+        final List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < threshold && i < suggestions.size(); i++) {
+          expected.add(suggestions.get(i).getWord());
+        }
+        assertEquals(typo + ", threshold " + threshold, expected, checker.getSuggestions(typo, threshold, 1));
+      }
+    }
+  }
+
+  public void testSuggestionsPerformance() {
+    final String[] typos = {"upgade", "dictionry", "perfomance", "seperate", "recieve", "compresion", "accomodate", "existance"};
+    PlatformTestUtil.startPerformanceTest("suggestions", 2000, new ThrowableRunnable() {
+      @Override
+      public void run() {
+        for (int i = 0; i < 10; i++) {
+          for (String typo : typos) {
+            assertFalse(typo, getManager().getSuggestions(typo).isEmpty());
+          }
+        }
+      }
+    }).cpuBound().assertTiming();
+  }
+
 }
@@ -40,6 +40,7 @@ import java.lang.reflect.TypeVariable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author peter
@@ -99,6 +100,11 @@ public abstract class DomInvocationHandler<T extends AbstractDomChildDescription
       }
       return null;
     }
+
+    @Override
+    protected Map<Method, Invocation> createMap() {
+      return InvocationCache.createMethodMap();
+    }
   };
 
   protected DomInvocationHandler(Type type, DomParentStrategy parentStrategy,
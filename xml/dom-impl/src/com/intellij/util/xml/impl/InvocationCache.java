@@ -5,7 +5,9 @@ import com.intellij.openapi.util.UserDataHolder;
 import com.intellij.pom.Navigatable;
 import com.intellij.psi.xml.XmlAttribute;
 import com.intellij.util.containers.ConcurrentFactoryMap;
+import com.intellij.util.containers.ConcurrentHashMap;
 import com.intellij.util.xml.*;
+import gnu.trove.TObjectHashingStrategy;
 import org.jetbrains.annotations.Nullable;
 
 import java.lang.annotation.Annotation;
@@ -23,6 +25,11 @@ public class InvocationCache {
     protected Invocation create(Method key) {
       return ourCoreInvocations.get(new JavaMethodSignature(key));
     }
+
+    @Override
+    protected Map<Method, Invocation> createMap() {
+      return createMethodMap();
+    }
   };
   private final Map<JavaMethod, Boolean> myGetters = new ConcurrentFactoryMap<JavaMethod, Boolean>() {
     @Override
@@ -159,6 +166,15 @@ public class InvocationCache {
     }
   }
 
+  /**
+   * DOM proxies pass the same {@link Method} instances on every call, so they're compared by identity
+   * which is much cheaper than {@link Method#equals(Object)} on this hot path.
+   */
+  @SuppressWarnings("unchecked")
+  static <V> Map<Method, V> createMethodMap() {
+    return new ConcurrentHashMap<Method, V>(TObjectHashingStrategy.IDENTITY);
+  }
+
   public InvocationCache(Class type) {
     myType = type;
   }
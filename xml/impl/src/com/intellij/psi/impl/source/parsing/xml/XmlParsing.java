@@ -116,6 +116,13 @@ public class XmlParsing {
     doctype.done(XML_DOCTYPE);
   }
 
+  /**
+   * Parses a single tag which isn't a root one
+   */
+  public void parseTag() {
+    parseTag(false);
+  }
+
   private void parseTag(boolean multipleRootTagError) {
     assert token() == XML_START_TAG_START : "Tag start expected";
     final PsiBuilder.Marker tag = mark();
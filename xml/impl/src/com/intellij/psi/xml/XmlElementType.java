@@ -39,7 +39,7 @@ public interface XmlElementType extends XmlTokenType {
   IElementType XML_DOCTYPE = new IXmlElementType("XML_DOCTYPE");
   IElementType XML_ATTRIBUTE = new IXmlElementType("XML_ATTRIBUTE");
   IElementType XML_COMMENT = new IXmlElementType("XML_COMMENT");
-  IElementType XML_TAG = new IXmlElementType("XML_TAG");
+  IElementType XML_TAG = new XmlTagElementType();
   IElementType XML_ELEMENT_DECL = new IXmlElementType("XML_ELEMENT_DECL");
   IElementType XML_CONDITIONAL_SECTION = new IXmlElementType("XML_CONDITIONAL_SECTION");
 
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2000-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.psi.xml;
+
+import com.intellij.lang.ASTNode;
+import com.intellij.lang.Language;
+import com.intellij.lang.PsiBuilder;
+import com.intellij.lang.PsiBuilderFactory;
+import com.intellij.lang.xml.XMLLanguage;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Comparing;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.psi.TokenType;
+import com.intellij.psi.impl.source.parsing.xml.XmlParsing;
+import com.intellij.psi.impl.source.tree.TreeElement;
+import com.intellij.psi.tree.IElementType;
+import com.intellij.psi.tree.IReparseableCompositeElementType;
+import com.intellij.psi.tree.TokenSet;
+import com.intellij.psi.tree.xml.IXmlElementType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Lets a change inside a tag of a large XML file be reparsed within the tag. The tag is reparsed on its own only when both its old
+ * and new text are well-formed, i.e. have no parse errors and every nested tag is closed by an end tag of the same name: only then
+ * parsing of the tag doesn't depend on the enclosing tags and the rest of the file is parsed the same way.
+ */
+class XmlTagElementType extends IXmlElementType implements IReparseableCompositeElementType {
+  XmlTagElementType() {
+    super("XML_TAG");
+  }
+
+  @Nullable
+  @Override
+  public ASTNode reparse(@NotNull ASTNode node,
+                         @NotNull CharSequence newText,
+                         @NotNull TextRange changedRange,
+                         @NotNull Language fileLanguage,
+                         @NotNull Project project) throws ReparseFileException {
+    // root tags are checked against the document (e.g. for multiple roots) and other dialects may close tags implicitly
+    ASTNode parent = node.getTreeParent();
+    if (fileLanguage != XMLLanguage.INSTANCE || parent == null || parent.getElementType() != XmlElementType.XML_TAG) {
+      return null;
+    }
+    // the old text of every enclosing tag contains this one
+    if (!isWellFormed(node)) {
+      throw new ReparseFileException();
+    }
+    if (newText.length() == 0 || newText.charAt(0) != '<') {
+      return null;
+    }
+
+    PsiBuilder builder = PsiBuilderFactory.getInstance().createBuilder(project, node, null, XMLLanguage.INSTANCE, newText);
+    builder.enforceCommentTokens(TokenSet.EMPTY);
+    PsiBuilder.Marker root = builder.mark();
+    if (builder.getTokenType() == XmlTokenType.XML_START_TAG_START) {
+      new XmlParsing(builder).parseTag();
+    }
+    while (!builder.eof()) {
+      builder.advanceLexer();
+    }
+    root.done(XmlElementType.XML_DOCUMENT);
+
+    ASTNode document = builder.getTreeBuilt();
+    // an error caused by the change itself (e.g. an unfinished tag or attribute value) is there in enclosing tags too
+    if (hasErrorAfter(document, changedRange.getStartOffset())) {
+      throw new ReparseFileException();
+    }
+    ASTNode tag = document.getFirstChildNode();
+    if (tag == null || tag != document.getLastChildNode() || tag.getElementType() != XmlElementType.XML_TAG ||
+        tag.getTextLength() != newText.length() || !isWellFormed(tag)) {
+      return null;
+    }
+    ((TreeElement)tag).rawRemove();
+    return tag;
+  }
+
+  private static boolean hasErrorAfter(@NotNull ASTNode node, int offset) {
+    if (node.getElementType() == TokenType.ERROR_ELEMENT) {
+      return node.getStartOffset() + node.getTextLength() >= offset;
+    }
+    for (ASTNode child = node.getFirstChildNode(); child != null; child = child.getTreeNext()) {
+      if (hasErrorAfter(child, offset)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isWellFormed(@NotNull ASTNode node) {
+    IElementType type = node.getElementType();
+    if (type == TokenType.ERROR_ELEMENT || type == XmlElementType.XML_TAG && !isClosedByName(node)) {
+      return false;
+    }
+    for (ASTNode child = node.getFirstChildNode(); child != null; child = child.getTreeNext()) {
+      if (!isWellFormed(child)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isClosedByName(@NotNull ASTNode tag) {
+    ASTNode start = tag.getFirstChildNode();
+    ASTNode end = tag.getLastChildNode();
+    if (start == null || start.getElementType() != XmlTokenType.XML_START_TAG_START || end == null) return false;
+    if (end.getElementType() == XmlTokenType.XML_EMPTY_ELEMENT_END) return true;
+    if (end.getElementType() != XmlTokenType.XML_TAG_END) return false;
+
+    ASTNode startName = start.getTreeNext();
+    ASTNode endName = skipWhiteSpaceBack(end.getTreePrev());
+    if (startName == null || startName.getElementType() != XmlTokenType.XML_NAME ||
+        endName == null || endName.getElementType() != XmlTokenType.XML_NAME) {
+      return false;
+    }
+    ASTNode endStart = skipWhiteSpaceBack(endName.getTreePrev());
+    return endStart != null && endStart.getElementType() == XmlTokenType.XML_END_TAG_START &&
+           Comparing.equal(startName.getChars(), endName.getChars());
+  }
+
+  @Nullable
+  private static ASTNode skipWhiteSpaceBack(@Nullable ASTNode node) {
+    while (node != null && (node.getElementType() == TokenType.WHITE_SPACE || XmlTokenType.WHITESPACES.contains(node.getElementType()))) {
+      node = node.getTreePrev();
+    }
+    return node;
+  }
+}
@@ -22,7 +22,6 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.util.TextRange;
 import com.intellij.openapi.util.text.StringUtil;
-import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.XmlElementFactory;
@@ -30,7 +29,6 @@ import com.intellij.psi.impl.source.xml.SchemaPrefix;
 import com.intellij.psi.impl.source.xml.TagNameReference;
 import com.intellij.psi.xml.*;
 import com.intellij.util.IncorrectOperationException;
-import com.intellij.xml.index.XmlNamespaceIndex;
 import com.intellij.xml.index.XmlTagNamesIndex;
 import com.intellij.xml.util.XmlUtil;
 import org.jetbrains.annotations.NonNls;
@@ -267,15 +265,6 @@ public class DefaultXmlExtension extends XmlExtension {
   }
 
   private static Set<String> guessNamespace(final PsiFile file, String tagName) {
-    final Project project = file.getProject();
-    final Collection<VirtualFile> files = XmlTagNamesIndex.getFilesByTagName(tagName, project);
-    final Set<String> possibleUris = new LinkedHashSet<String>(files.size());
-    for (VirtualFile virtualFile : files) {
-      final String namespace = XmlNamespaceIndex.getNamespace(virtualFile, project);
-      if (namespace != null) {
-        possibleUris.add(namespace);
-      }
-    }
-    return possibleUris;
+    return XmlTagNamesIndex.getNamespacesByTagName(tagName, file.getProject());
   }
 }
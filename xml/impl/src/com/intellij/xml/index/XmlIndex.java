@@ -20,17 +20,26 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.roots.OrderEntry;
 import com.intellij.openapi.roots.ProjectFileIndex;
 import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.util.Key;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.openapi.vfs.VirtualFileFilter;
 import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.NullableFunction;
+import com.intellij.util.ObjectUtils;
 import com.intellij.util.indexing.FileBasedIndex;
 import com.intellij.util.indexing.FileBasedIndexExtension;
+import com.intellij.util.indexing.FileContent;
 import com.intellij.util.io.EnumeratorStringDescriptor;
 import com.intellij.util.io.KeyDescriptor;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Dmitry Avdeev
@@ -38,6 +47,7 @@ import java.util.List;
 public abstract class XmlIndex<V> extends FileBasedIndexExtension<String, V> {
 
   protected static final EnumeratorStringDescriptor KEY_DESCRIPTOR = new EnumeratorStringDescriptor();
+  private static final Key<String> FINGERPRINT = Key.create("xml.index.content.fingerprint");
 
   private static final FileBasedIndex.InputFilter INPUT_FILTER = new FileBasedIndex.InputFilter() {
     public boolean acceptInput(final VirtualFile file) {
@@ -101,6 +111,49 @@ public abstract class XmlIndex<V> extends FileBasedIndexExtension<String, V> {
     };
   }
 
+  /**
+   * The same schemas are often bundled in many jars, so the data computed for a schema is kept while memory allows and reused for
+   * identical schemas, which are recognized by the length and SHA-1 digest of the content. The digest is computed once per content
+   * and shared by all XML indices.
+   */
+  @Nullable
+  protected static <T> T computeForContent(@NotNull FileContent content,
+                                           @NotNull Map<String, Object> cache,
+                                           @NotNull NullableFunction<CharSequence, T> function) {
+    String fingerprint = getFingerprint(content);
+    Object cached = fingerprint == null ? null : cache.get(fingerprint);
+    if (cached == null) {
+      T value = function.fun(content.getContentAsText());
+      if (fingerprint != null) {
+        cache.put(fingerprint, value == null ? ObjectUtils.NULL : value);
+      }
+      return value;
+    }
+    //noinspection unchecked
+    return cached == ObjectUtils.NULL ? null : (T)cached;
+  }
+
+  @Nullable
+  private static String getFingerprint(@NotNull FileContent content) {
+    String fingerprint = content.getUserData(FINGERPRINT);
+    if (fingerprint == null) {
+      fingerprint = computeFingerprint(content.getContent());
+      content.putUserData(FINGERPRINT, fingerprint);
+    }
+    return fingerprint;
+  }
+
+  @Nullable
+  private static String computeFingerprint(@NotNull byte[] content) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-1").digest(content);
+      return content.length + ":" + new BigInteger(1, digest).toString(16);
+    }
+    catch (NoSuchAlgorithmException e) {
+      return null;
+    }
+  }
+
   public KeyDescriptor<String> getKeyDescriptor() {
     return KEY_DESCRIPTOR;
   }
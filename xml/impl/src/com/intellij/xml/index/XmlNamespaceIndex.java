@@ -19,6 +19,7 @@ import com.intellij.openapi.module.Module;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.util.NullableFunction;
+import com.intellij.util.containers.ConcurrentSoftValueHashMap;
 import com.intellij.util.indexing.DataIndexer;
 import com.intellij.util.indexing.FileBasedIndex;
 import com.intellij.util.indexing.FileContent;
@@ -60,6 +61,19 @@ public class XmlNamespaceIndex extends XmlIndex<String> {
   
   private static final ID<String,String> NAME = ID.create("XmlNamespaces");
 
+  private static final Map<String, Object> ourNamespaces = new ConcurrentSoftValueHashMap<String, Object>();
+  private static final NullableFunction<CharSequence, String> COMPUTE_NAMESPACE = new NullableFunction<CharSequence, String>() {
+    @Override
+    public String fun(CharSequence text) {
+      return XsdNamespaceBuilder.computeNamespace(CharArrayUtil.readerFromCharSequence(text));
+    }
+  };
+
+  @Nullable
+  static String computeNamespace(@NotNull FileContent content) {
+    return computeForContent(content, ourNamespaces, COMPUTE_NAMESPACE);
+  }
+
   @Override
   @NotNull
   public ID<String, String> getName() {
@@ -73,7 +87,7 @@ public class XmlNamespaceIndex extends XmlIndex<String> {
       @Override
       @NotNull
       public Map<String, String> map(final FileContent inputData) {
-        final String ns = XsdNamespaceBuilder.computeNamespace(CharArrayUtil.readerFromCharSequence(inputData.getContentAsText()));
+        final String ns = computeNamespace(inputData);
         final HashMap<String, String> map = new HashMap<String, String>(2);
         if (ns != null) {
           map.put(ns, "");
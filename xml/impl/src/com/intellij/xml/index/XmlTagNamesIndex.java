@@ -17,49 +17,77 @@ package com.intellij.xml.index;
 
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.NullableFunction;
+import com.intellij.util.containers.ConcurrentSoftValueHashMap;
 import com.intellij.util.containers.HashMap;
 import com.intellij.util.indexing.*;
 import com.intellij.util.io.DataExternalizer;
 import com.intellij.util.text.CharArrayUtil;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Collection;
-import java.util.Collections;
-import java.util.Map;
+import java.util.*;
 
 /**
  * @author Dmitry Avdeev
  */
-public class XmlTagNamesIndex extends XmlIndex<Void> {
+public class XmlTagNamesIndex extends XmlIndex<String> {
 
   public static Collection<VirtualFile> getFilesByTagName(String tagName, final Project project) {
     return FileBasedIndex.getInstance().getContainingFiles(NAME, tagName, createFilter(project));
   }
 
+  /**
+   * @return target namespaces of the schemas declaring the tag, schemas without one are skipped. The namespaces are stored along
+   *         with the tag names so that they needn't be looked up in {@link XmlNamespaceIndex} file by file
+   */
+  public static Set<String> getNamespacesByTagName(String tagName, final Project project) {
+    final Set<String> namespaces = new LinkedHashSet<String>();
+    FileBasedIndex.getInstance().processValues(NAME, tagName, null, new FileBasedIndex.ValueProcessor<String>() {
+      @Override
+      public boolean process(VirtualFile file, String namespace) {
+        if (namespace.length() > 0) {
+          namespaces.add(namespace);
+        }
+        return true;
+      }
+    }, createFilter(project));
+    return namespaces;
+  }
+
   public static Collection<String> getAllTagNames(Project project) {
     return FileBasedIndex.getInstance().getAllKeys(NAME, project);
   }
 
-  private static final ID<String,Void> NAME = ID.create("XmlTagNames");
+  private static final ID<String,String> NAME = ID.create("XmlTagNames");
+
+  private static final Map<String, Object> ourTagNames = new ConcurrentSoftValueHashMap<String, Object>();
+  private static final NullableFunction<CharSequence, Collection<String>> COMPUTE_TAG_NAMES =
+    new NullableFunction<CharSequence, Collection<String>>() {
+      @Override
+      public Collection<String> fun(CharSequence text) {
+        return XsdTagNameBuilder.computeTagNames(CharArrayUtil.readerFromCharSequence(text));
+      }
+    };
 
   @Override
   @NotNull
-  public ID<String, Void> getName() {
+  public ID<String, String> getName() {
     return NAME;
   }
 
   @Override
   @NotNull
-  public DataIndexer<String, Void, FileContent> getIndexer() {
-    return new DataIndexer<String, Void, FileContent>() {
+  public DataIndexer<String, String, FileContent> getIndexer() {
+    return new DataIndexer<String, String, FileContent>() {
       @Override
       @NotNull
-      public Map<String, Void> map(final FileContent inputData) {
-        final Collection<String> tags = XsdTagNameBuilder.computeTagNames(CharArrayUtil.readerFromCharSequence(inputData.getContentAsText()));
+      public Map<String, String> map(final FileContent inputData) {
+        final Collection<String> tags = computeForContent(inputData, ourTagNames, COMPUTE_TAG_NAMES);
         if (tags != null && !tags.isEmpty()) {
-          final HashMap<String, Void> map = new HashMap<String, Void>(tags.size());
+          final String ns = XmlNamespaceIndex.computeNamespace(inputData);
+          final HashMap<String, String> map = new HashMap<String, String>(tags.size());
           for (String tag : tags) {
-            map.put(tag, null);
+            map.put(tag, ns == null ? "" : ns);
           }
           return map;
         }
@@ -71,8 +99,12 @@ public class XmlTagNamesIndex extends XmlIndex<Void> {
   }
 
   @Override
-  public DataExternalizer<Void> getValueExternalizer() {
-    return ScalarIndexExtension.VOID_DATA_EXTERNALIZER;
+  public DataExternalizer<String> getValueExternalizer() {
+    return KEY_DESCRIPTOR;
   }
 
+  @Override
+  public int getVersion() {
+    return 1;
+  }
 }
@@ -8,6 +8,8 @@
  */
 package com.intellij.codeInsight;
 
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.fileTypes.StdFileTypes;
 import com.intellij.psi.AbstractReparseTestCase;
@@ -16,11 +18,14 @@ import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.impl.DebugUtil;
 import com.intellij.psi.impl.source.xml.XmlFileImpl;
+import com.intellij.psi.text.BlockSupport;
 import com.intellij.psi.xml.XmlFile;
+import com.intellij.psi.xml.XmlTag;
 import com.intellij.testFramework.ParsingTestCase;
 import com.intellij.testFramework.PlatformTestCase;
 import com.intellij.testFramework.PlatformTestUtil;
 import com.intellij.util.IncorrectOperationException;
+import com.intellij.util.ThrowableRunnable;
 
 import java.io.File;
 
@@ -133,6 +138,98 @@ public class XmlReparseTest extends AbstractReparseTestCase {
                "</table>");
     insert("=");
   }
+  public void testAttributeValueInNestedTag() throws Exception {
+    prepareFile("<root><a><b attr=\"", "\"/></a><c/></root>");
+
+    XmlTag c = ((XmlFile)myDummyFile).getDocument().getRootTag().findFirstSubTag("c");
+
+    insert("x");
+    insert(" ");
+    insert("<");
+    insert("&amp;");
+
+    assertSame(c, ((XmlFile)myDummyFile).getDocument().getRootTag().findFirstSubTag("c"));
+  }
+
+  public void testEndTagOfEnclosingTagInNestedTag() throws Exception {
+    prepareFile("<root><a><b>", "</b></a><c/></root>");
+
+    insert("</a>");
+  }
+
+  public void testMismatchedEndTagInNestedTag() throws Exception {
+    prepareFile("<root><a><b>", "</b></a><c/></root>");
+
+    insert("<d>");
+    insert("</e>");
+  }
+
+  public void testUnclosedNestedTagBecomesClosed() throws Exception {
+    prepareFile("<root><a><b>", "</a><c/></root>");
+
+    insert("</b>");
+  }
+
+  public void testTypingTagInNestedTag() throws Exception {
+    prepareFile("<root><a><b>", "</b></a><c/></root>");
+
+    for (String s : TYPED_TAG) {
+      insert(s);
+    }
+  }
+
+  public void testTypingInLargeFilePerformance() throws Exception {
+    prepareLargeFile("  <item id=\"", "\"><name/></item>\n");
+
+    final BlockSupport blockSupport = ServiceManager.getService(myProject, BlockSupport.class);
+    final int offset = myDummyFile.getTextLength() - "\"><name/></item>\n</root>".length();
+    PlatformTestUtil.startPerformanceTest("typing in a large xml file", 2000, new ThrowableRunnable() {
+      @Override
+      public void run() throws Exception {
+        ApplicationManager.getApplication().runWriteAction(new Runnable() {
+          @Override
+          public void run() {
+            for (int i = 0; i < 100; i++) {
+              blockSupport.reparseRange(myDummyFile, offset, offset, "x");
+            }
+          }
+        });
+      }
+    }).cpuBound().assertTiming();
+  }
+
+  public void testTypingUnbalancedTagInLargeFilePerformance() throws Exception {
+    prepareLargeFile("  <item id=\"x\"><name/>", "</item>\n");
+
+    final BlockSupport blockSupport = ServiceManager.getService(myProject, BlockSupport.class);
+    final int offset = myDummyFile.getTextLength() - "</item>\n</root>".length();
+    PlatformTestUtil.startPerformanceTest("typing an unfinished tag in a large xml file", 3000, new ThrowableRunnable() {
+      @Override
+      public void run() throws Exception {
+        ApplicationManager.getApplication().runWriteAction(new Runnable() {
+          @Override
+          public void run() {
+            int insertOffset = offset;
+            for (String s : TYPED_TAG) {
+              blockSupport.reparseRange(myDummyFile, insertOffset, insertOffset, s);
+              insertOffset += s.length();
+            }
+          }
+        });
+      }
+    }).cpuBound().assertTiming();
+  }
+
+  private static final String[] TYPED_TAG = {"<", "d", " ", "a", "=", "\"", "v", "\"", "/", ">"};
+
+  private void prepareLargeFile(String prefix, String suffix) {
+    StringBuilder text = new StringBuilder("<root>\n");
+    for (int i = 0; i < 20000; i++) {
+      text.append("  <item id=\"").append(i).append("\"><name>item").append(i).append("</name></item>\n");
+    }
+    prepareFile(text.append(prefix).toString(), suffix + "</root>");
+  }
+
   private static final String marker = "<marker>";
   public void testXmlDeclDtd() throws Exception {
     PsiFile file = createFile("x.xml", "<!DOCTYPE name [\n" +
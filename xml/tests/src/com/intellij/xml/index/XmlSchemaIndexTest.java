@@ -10,6 +10,7 @@ import com.intellij.util.containers.ContainerUtil;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -66,6 +67,16 @@ public class XmlSchemaIndexTest extends CodeInsightFixtureTestCase {
     List<String> expected = Arrays.asList("XMLSchema.xsd", "XMLSchema.xsd");
     names.removeAll(expected);
     assertTrue(files1.toString(), names.isEmpty());
+
+    assertEquals(Collections.singleton("http://www.w3.org/2001/XMLSchema"), XmlTagNamesIndex.getNamespacesByTagName("schema", project));
+  }
+
+  public void testTagOfSchemaWithoutNamespace() {
+    myFixture.copyDirectoryToProject("", "");
+
+    final Project project = getProject();
+    assertEquals(1, XmlTagNamesIndex.getFilesByTagName("noNamespaceTag", project).size());
+    assertEmpty(XmlTagNamesIndex.getNamespacesByTagName("noNamespaceTag", project));
   }
 
   public void testNamespaceIndex() {